@@ -15,5 +15,9 @@ package com.nucleuschess;
 */
 public enum Color {
 
-    BLACK, WHITE
+    BLACK, WHITE;
+
+    public Color opposite() {
+        return this == WHITE ? BLACK : WHITE;
+    }
 }
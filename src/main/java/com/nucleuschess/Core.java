@@ -2,11 +2,13 @@ package com.nucleuschess;
 
 import com.google.gson.Gson;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.journal.MoveLog;
 import com.nucleuschess.net.BasicEndpoint;
 import com.nucleuschess.net.SessionManager;
 import jakarta.websocket.Session;
 import org.glassfish.tyrus.server.Server;
 
+import java.nio.file.Paths;
 import java.util.HashSet;
 import java.util.Set;
 
@@ -27,7 +29,11 @@ public class Core {
 
     private static final Gson gson = new Gson();
 
+    // the game of the board, in the move log
+    private static final long GAME = 0L;
+
     private static SessionManager sessionManager;
+    private static MoveLog moveLog;
     private static Board board;
 
     public static void main(String[] args) {
@@ -39,7 +45,14 @@ public class Core {
             Thread.currentThread().setContextClassLoader(Core.class.getClassLoader());
             server.start();
 
-            board = new Board();
+            // the game continues where it was when the server stopped
+            moveLog = new MoveLog(Paths.get("games"));
+            board = moveLog.getRecoveredGames().get(GAME);
+
+            if (board == null) {
+                board = new Board();
+                moveLog.startGame(GAME, board).join();
+            }
 
             while (true) {
                 try {
@@ -52,6 +65,14 @@ public class Core {
             e.printStackTrace();
         } finally {
             server.stop();
+
+            if (moveLog != null) {
+                try {
+                    moveLog.close();
+                } catch (Exception e) {
+                    e.printStackTrace();
+                }
+            }
         }
     }
 
@@ -59,6 +80,13 @@ public class Core {
         return board;
     }
 
+    /**
+     * Get the log the moves of the board are added to once they are accepted, see {@link MoveLog#append(long, int)}
+     */
+    public static MoveLog getMoveLog() {
+        return moveLog;
+    }
+
     public static SessionManager getSessionManager() {
         return sessionManager;
     }
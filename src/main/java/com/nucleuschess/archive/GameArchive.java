@@ -0,0 +1,274 @@
+package com.nucleuschess.archive;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.pgn.PgnGame;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.IntConsumer;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Memory-mapped archive of games, which {@link GameArchiveWriter} writes. Any game can be read without reading the
+ * games before it, and without parsing text.
+ * <p>
+ * A game is stored as its tag pairs and result, followed by its moves. Every move is stored as its index in the
+ * legal moves of the position, see {@link Board#generateLegalMoves(MoveList)}, in as few bits as the number of legal
+ * moves needs: five bits for 20 legal moves, and none when there is only one. The format therefore depends on the
+ * order moves are generated in, and {@link #VERSION} changes when that order does.
+ * <p>
+ * The file starts with {@link #MAGIC} and the version, and ends with the offset of every game, the offset of that
+ * index, the number of games and {@link #MAGIC} again. Archives are read from any number of threads at once.
+ */
+public final class GameArchive implements Closeable {
+
+    static final int MAGIC = 0x4E434741;
+    static final int VERSION = 1;
+    static final int HEADER_SIZE = 8;
+    private static final int FOOTER_SIZE = 16;
+
+    private static final String[] RESULTS = {"*", "1-0", "0-1", "1/2-1/2"};
+
+    private final FileChannel channel;
+    private final MappedByteBuffer buffer;
+    private final long index;
+    private final int count;
+
+    public GameArchive(Path path) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+
+        try {
+            final long size = channel.size();
+            if (size > Integer.MAX_VALUE) {
+                throw new IOException("Archive is larger than 2 GB");
+            }
+            if (size < HEADER_SIZE + FOOTER_SIZE) {
+                throw new IOException("Not an archive");
+            }
+
+            this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            this.index = buffer.getLong((int) size - FOOTER_SIZE);
+            this.count = buffer.getInt((int) size - 8);
+
+            if (buffer.getInt(0) != MAGIC || buffer.getInt((int) size - 4) != MAGIC) {
+                throw new IOException("Not an archive");
+            }
+            if (buffer.getInt(4) != VERSION) {
+                throw new IOException("Archive version " + buffer.getInt(4) + " is not supported");
+            }
+            if (index + (long) count * 8 != size - FOOTER_SIZE) {
+                throw new IOException("Archive index is damaged");
+            }
+        } catch (IOException e) {
+            channel.close();
+            throw e;
+        }
+    }
+
+    public int getGameCount() {
+        return count;
+    }
+
+    /**
+     * Read a game
+     *
+     * @param game Number of the game, from 0
+     * @return The game, with its moves replayed into packed moves
+     */
+    public PgnGame getGame(int game) {
+        final Reader reader = new Reader(getOffset(game));
+        final Map<String, String> tags = reader.readTags();
+        final String result = RESULTS[reader.readByte() & 3];
+        final int[] moves = new int[reader.readNumber()];
+
+        final String fen = tags.get("FEN");
+        reader.readMoves(fen == null ? new Board() : Board.fromFen(fen), moves, null, moves.length);
+        return new PgnGame(tags, moves, result);
+    }
+
+    /**
+     * Replay the moves of a game onto a board
+     *
+     * @param game  Number of the game, from 0
+     * @param board Board with the position the game starts from, see {@link #createBoard(int)}
+     * @param plies Number of moves to play, which is limited to the moves of the game
+     * @return Number of moves played
+     */
+    public int replay(int game, Board board, int plies) {
+        return replay(game, board, plies, null);
+    }
+
+    /**
+     * Replay the moves of a game onto a board, and pass every move to a listener after it's played
+     *
+     * @param listener Listener which gets the packed moves, or null
+     * @see #replay(int, Board, int)
+     */
+    public int replay(int game, Board board, int plies, IntConsumer listener) {
+        final Reader reader = new Reader(getOffset(game));
+        reader.skipTags();
+        reader.readByte();
+
+        final int played = Math.min(plies, reader.readNumber());
+        reader.readMoves(board, null, listener, played);
+        return played;
+    }
+
+    /**
+     * Create a board with the position a game starts from
+     */
+    public Board createBoard(int game) {
+        final String fen = new Reader(getOffset(game)).readTags().get("FEN");
+        return fen == null ? new Board() : Board.fromFen(fen);
+    }
+
+    public String getResult(int game) {
+        final Reader reader = new Reader(getOffset(game));
+        reader.skipTags();
+        return RESULTS[reader.readByte() & 3];
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    static int getResultCode(String result) {
+        for (int i = 1; i < RESULTS.length; i++) {
+            if (RESULTS[i].equals(result)) return i;
+        }
+        return 0;
+    }
+
+    /**
+     * Get the number of bits a move index takes when a position has some legal moves
+     */
+    static int getWidth(int moves) {
+        return moves <= 1 ? 0 : 32 - Integer.numberOfLeadingZeros(moves - 1);
+    }
+
+    private int getOffset(int game) {
+        if (game < 0 || game >= count) {
+            throw new IndexOutOfBoundsException("Game " + game + " is not in the archive of " + count + " games");
+        }
+        return (int) buffer.getLong((int) index + game * 8);
+    }
+
+    /**
+     * Reads a game from the mapped file with absolute reads, so readers of different threads don't share a position
+     */
+    private final class Reader {
+
+        private final ByteBuffer buffer;
+        private int position;
+
+        private Reader(int position) {
+            this.buffer = GameArchive.this.buffer;
+            this.position = position;
+        }
+
+        private int readByte() {
+            return buffer.get(position++);
+        }
+
+        private int readNumber() {
+            int value = 0;
+
+            for (int shift = 0; ; shift += 7) {
+                final int b = readByte();
+                value |= (b & 0x7F) << shift;
+                if ((b & 0x80) == 0) return value;
+            }
+        }
+
+        private Map<String, String> readTags() {
+            final int size = readNumber();
+            final Map<String, String> tags = new LinkedHashMap<>(size * 2);
+
+            for (int i = 0; i < size; i++) {
+                final String name = readString();
+                tags.put(name, readString());
+            }
+            return tags;
+        }
+
+        private void skipTags() {
+            for (int i = readNumber() * 2; i > 0; i--) {
+                final int length = readNumber();
+                position += length;
+            }
+        }
+
+        private String readString() {
+            final byte[] bytes = new byte[readNumber()];
+
+            for (int i = 0; i < bytes.length; i++) {
+                bytes[i] = buffer.get(position + i);
+            }
+            position += bytes.length;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        /**
+         * Play the moves of the game on a board
+         *
+         * @param moves    Array the packed moves are stored in, or null
+         * @param listener Listener which gets the packed moves, or null
+         */
+        private void readMoves(Board board, int[] moves, IntConsumer listener, int count) {
+            final MoveList legal = new MoveList();
+            long bits = 0L;
+            int bitCount = 0;
+
+            for (int i = 0; i < count; i++) {
+                legal.clear();
+                board.generateLegalMoves(legal);
+
+                final int width = getWidth(legal.size());
+                while (bitCount < width) {
+                    bits |= (long) (readByte() & 0xFF) << bitCount;
+                    bitCount += 8;
+                }
+
+                final int index = (int) bits & ((1 << width) - 1);
+                bits >>>= width;
+                bitCount -= width;
+
+                if (index >= legal.size()) {
+                    throw new IllegalStateException("Archive move " + i + " is not legal");
+                }
+
+                final int move = legal.get(index);
+                board.makeMove(move);
+                if (moves != null) {
+                    moves[i] = move;
+                }
+                if (listener != null) {
+                    listener.accept(move);
+                }
+            }
+        }
+    }
+}
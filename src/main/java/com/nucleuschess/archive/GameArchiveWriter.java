@@ -0,0 +1,205 @@
+package com.nucleuschess.archive;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.pgn.PgnGame;
+import com.nucleuschess.pgn.PgnReader;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Writes games to an archive which {@link GameArchive} reads. Games are numbered from 0 in the order they are added,
+ * and the offset index is written when the writer is closed.
+ */
+public final class GameArchiveWriter implements Closeable {
+
+    private final DataOutputStream out;
+    private final MoveList moves;
+
+    private byte[] record;
+    private int length;
+    private long bits;
+    private int bitCount;
+
+    private long position;
+    private long[] offsets;
+    private int count;
+
+    public GameArchiveWriter(Path path) throws IOException {
+        this.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16));
+        this.moves = new MoveList();
+        this.record = new byte[1024];
+        this.offsets = new long[1024];
+
+        out.writeInt(GameArchive.MAGIC);
+        out.writeInt(GameArchive.VERSION);
+        position = GameArchive.HEADER_SIZE;
+    }
+
+    /**
+     * Add a game to the archive
+     *
+     * @param game Game with moves which are legal from the position it starts from
+     * @return Number of the game in the archive
+     * @throws IllegalArgumentException If a move of the game is not legal
+     */
+    public int add(PgnGame game) throws IOException {
+        length = 0;
+
+        final Map<String, String> tags = game.getTags();
+        writeNumber(tags.size());
+        for (Map.Entry<String, String> tag : tags.entrySet()) {
+            writeString(tag.getKey());
+            writeString(tag.getValue());
+        }
+
+        writeByte(GameArchive.getResultCode(game.getResult()));
+        writeNumber(game.getMoveCount());
+
+        // every move is its index in the legal moves, in as many bits as the largest index needs
+        final Board board = game.createBoard();
+        for (int move : game.getMoves()) {
+            moves.clear();
+            board.generateLegalMoves(moves);
+
+            final int index = indexOf(moves, move);
+            if (index == -1) {
+                throw new IllegalArgumentException("Illegal move in game " + count);
+            }
+            writeBits(index, GameArchive.getWidth(moves.size()));
+            board.makeMove(move);
+        }
+        flushBits();
+
+        if (count == offsets.length) {
+            offsets = Arrays.copyOf(offsets, count * 2);
+        }
+        offsets[count] = position;
+        out.write(record, 0, length);
+        position += length;
+        return count++;
+    }
+
+    public int getGameCount() {
+        return count;
+    }
+
+    /**
+     * Write the offset index and close the archive
+     */
+    @Override
+    public void close() throws IOException {
+        for (int i = 0; i < count; i++) {
+            out.writeLong(offsets[i]);
+        }
+        out.writeLong(position);
+        out.writeInt(count);
+        out.writeInt(GameArchive.MAGIC);
+        out.close();
+    }
+
+    /**
+     * Convert a PGN file to an archive: {@code GameArchiveWriter <pgn> <archive>}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: GameArchiveWriter <pgn> <archive>");
+            return;
+        }
+
+        final ForkJoinPool pool = new ForkJoinPool();
+        try (PgnReader reader = new PgnReader(Paths.get(args[0]), pool);
+             GameArchiveWriter writer = new GameArchiveWriter(Paths.get(args[1]))) {
+            reader.games().forEach(game -> {
+                try {
+                    writer.add(game);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+
+            System.out.printf("Games: %d (%d skipped)%n", writer.getGameCount(), reader.getErrors());
+            System.out.printf("PGN: %d bytes, archive: %d bytes%n", reader.getBytes(), writer.position);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private static int indexOf(MoveList moves, int move) {
+        for (int i = 0; i < moves.size(); i++) {
+            if (moves.get(i) == move) return i;
+        }
+        return -1;
+    }
+
+    private void writeString(String value) {
+        final byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        writeNumber(bytes.length);
+
+        for (byte b : bytes) {
+            writeByte(b);
+        }
+    }
+
+    /**
+     * Write a number in as many bytes as it needs, seven bits at a time
+     */
+    private void writeNumber(int value) {
+        while ((value & ~0x7F) != 0) {
+            writeByte(value & 0x7F | 0x80);
+            value >>>= 7;
+        }
+        writeByte(value);
+    }
+
+    private void writeBits(int value, int width) {
+        bits |= (long) value << bitCount;
+        bitCount += width;
+
+        while (bitCount >= 8) {
+            writeByte((int) bits);
+            bits >>>= 8;
+            bitCount -= 8;
+        }
+    }
+
+    private void flushBits() {
+        if (bitCount > 0) {
+            writeByte((int) bits);
+        }
+        bits = 0L;
+        bitCount = 0;
+    }
+
+    private void writeByte(int value) {
+        if (length == record.length) {
+            record = Arrays.copyOf(record, length * 2);
+        }
+        record[length++] = (byte) value;
+    }
+}
@@ -0,0 +1,554 @@
+package com.nucleuschess.archive;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Index from the hash of a position, see {@link Board#hash()}, to the games of a {@link GameArchive} which reach it
+ * and how those games ended.
+ * <p>
+ * The index is a directory of runs. A run covers a range of games, holds its positions sorted by hash, and is never
+ * changed once it's written: new games are added as a new run, and {@link #compact()} merges the runs into one. A
+ * lookup is a binary search in every memory-mapped run, so lookups stay fast as long as the runs are compacted now
+ * and then. Lookups can be done from any number of threads, also while the index is updated.
+ * <p>
+ * A run file starts with a header, followed by the keys and then the game numbers. Every key is the hash, the index
+ * of its first game number, the number of games and their wins, draws and losses.
+ */
+public final class PositionIndex {
+
+    private static final int MAGIC = 0x4E435049;
+    private static final int VERSION = 1;
+    private static final int HEADER_SIZE = 24;
+    private static final int KEY_SIZE = 28;
+
+    // positions collected in memory before they are written as a run
+    private static final int RUN_SIZE = 1 << 22;
+
+    private final Path directory;
+    private final int plies;
+    private volatile List<Run> runs;
+
+    /**
+     * Open an index, or create it when the directory has none
+     *
+     * @param directory Directory of the runs
+     * @param plies     Number of moves of a game whose positions are indexed, after the position it starts from
+     */
+    public PositionIndex(Path directory, int plies) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.plies = plies;
+        this.runs = open(directory);
+    }
+
+    /**
+     * Get the number of games which are indexed, which are the first games of the archive
+     */
+    public int getGameCount() {
+        final List<Run> runs = this.runs;
+        return runs.isEmpty() ? 0 : runs.get(runs.size() - 1).endGame;
+    }
+
+    public int getRunCount() {
+        return runs.size();
+    }
+
+    public PositionStats getStats(Board board) {
+        return getStats(board.hash());
+    }
+
+    public PositionStats getStats(long hash) {
+        PositionStats stats = PositionStats.EMPTY;
+
+        for (Run run : runs) {
+            final int key = run.find(hash);
+
+            if (key != -1) {
+                stats = stats.add(run.getStats(key));
+            }
+        }
+        return stats;
+    }
+
+    /**
+     * Get the games which reach a position
+     *
+     * @param hash  Hash of the position
+     * @param limit Maximum number of games
+     * @return Numbers of the games in the archive, in ascending order
+     */
+    public int[] getGames(long hash, int limit) {
+        int[] games = new int[0];
+
+        for (Run run : runs) {
+            final int key = run.find(hash);
+            if (key == -1) continue;
+
+            final int first = run.getFirstEntry(key);
+            final int count = Math.min(run.getEntryCount(key), limit - games.length);
+            int size = games.length;
+            games = Arrays.copyOf(games, size + count);
+
+            for (int i = 0; i < count; i++) {
+                games[size++] = run.getGame(first + i);
+            }
+            if (games.length == limit) break;
+        }
+        return games;
+    }
+
+    /**
+     * Get the statistics of the legal moves of a position, as in an opening explorer. Those are the statistics of the
+     * positions after the moves, which includes the games which reach them through another move order.
+     *
+     * @param board Position, which is the same afterwards
+     * @param moves List the legal moves are generated into
+     * @return Statistics of every move in the list
+     */
+    public PositionStats[] getMoveStats(Board board, MoveList moves) {
+        moves.clear();
+        board.generateLegalMoves(moves);
+
+        final PositionStats[] stats = new PositionStats[moves.size()];
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            stats[i] = getStats(board.hash());
+            board.unmakeMove();
+        }
+        return stats;
+    }
+
+    /**
+     * Index the games of an archive which are not indexed yet, and write them as new runs
+     *
+     * @return Number of games which were indexed
+     */
+    public synchronized int update(GameArchive archive) throws IOException {
+        final int end = archive.getGameCount();
+        final int start = getGameCount();
+        final Batch batch = new Batch();
+        int first = start;
+
+        for (int game = start; game < end; game++) {
+            batch.add(archive, game, game - first);
+
+            if (batch.size >= RUN_SIZE || game == end - 1) {
+                add(batch.write(first, game + 1));
+                batch.clear();
+                first = game + 1;
+            }
+        }
+        return end - start;
+    }
+
+    /**
+     * Merge all runs into one
+     */
+    public synchronized void compact() throws IOException {
+        final List<Run> current = runs;
+        if (current.size() < 2) return;
+
+        final RunWriter writer = new RunWriter();
+        final int[] keys = new int[current.size()];
+
+        while (true) {
+            boolean found = false;
+            long hash = 0L;
+
+            for (int i = 0; i < keys.length; i++) {
+                final Run run = current.get(i);
+
+                if (keys[i] < run.keyCount && (!found || run.getHash(keys[i]) < hash)) {
+                    hash = run.getHash(keys[i]);
+                    found = true;
+                }
+            }
+            if (!found) break;
+
+            PositionStats stats = PositionStats.EMPTY;
+            for (int i = 0; i < keys.length; i++) {
+                final Run run = current.get(i);
+
+                if (keys[i] < run.keyCount && run.getHash(keys[i]) == hash) {
+                    stats = stats.add(run.getStats(keys[i]));
+                }
+            }
+
+            // the runs cover ascending ranges of games, so the games stay in order
+            writer.addKey(hash, stats);
+            for (int i = 0; i < keys.length; i++) {
+                final Run run = current.get(i);
+
+                if (keys[i] < run.keyCount && run.getHash(keys[i]) == hash) {
+                    final int first = run.getFirstEntry(keys[i]);
+
+                    for (int j = 0; j < run.getEntryCount(keys[i]); j++) {
+                        writer.addGame(run.getGame(first + j));
+                    }
+                    keys[i]++;
+                }
+            }
+        }
+
+        final Run merged = new Run(writer.finish(0, current.get(current.size() - 1).endGame));
+        runs = Collections.singletonList(merged);
+
+        for (Run run : current) {
+            Files.deleteIfExists(run.path);
+        }
+    }
+
+    /**
+     * Index the games of an archive: {@code PositionIndex <archive> <directory> [plies]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.out.println("Usage: PositionIndex <archive> <directory> [plies]");
+            return;
+        }
+
+        final PositionIndex index = new PositionIndex(Paths.get(args[1]), args.length > 2 ? Integer.parseInt(args[2]) : 40);
+        try (GameArchive archive = new GameArchive(Paths.get(args[0]))) {
+            final long start = System.nanoTime();
+            final int games = index.update(archive);
+            index.compact();
+            final long time = Math.max(System.nanoTime() - start, 1L);
+
+            System.out.printf("Games: %d (%d indexed)%n", games, index.getGameCount());
+            System.out.printf("Games/s: %.0f%n", games * 1e9 / time);
+            System.out.println("Start position: " + index.getStats(new Board()));
+        }
+    }
+
+    private void add(Path path) throws IOException {
+        final List<Run> runs = new ArrayList<>(this.runs);
+        runs.add(new Run(path));
+        this.runs = Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * Open the runs of a directory. A run which is covered by another, because compaction stopped before it deleted
+     * the runs it merged, is deleted.
+     */
+    private static List<Run> open(Path directory) throws IOException {
+        final List<Path> paths;
+        try (Stream<Path> files = Files.list(directory)) {
+            paths = files.collect(Collectors.toList());
+        }
+
+        final List<Run> all = new ArrayList<>();
+        for (Path path : paths) {
+            final String name = path.getFileName().toString();
+
+            if (name.endsWith(".run")) {
+                all.add(new Run(path));
+            } else if (name.endsWith(".tmp")) {
+                Files.delete(path);
+            }
+        }
+        all.sort(Comparator.<Run>comparingInt(run -> run.firstGame).thenComparingInt(run -> -run.endGame));
+
+        final List<Run> runs = new ArrayList<>();
+        int end = 0;
+        for (Run run : all) {
+            if (run.firstGame == end) {
+                runs.add(run);
+                end = run.endGame;
+            } else if (run.endGame <= end) {
+                Files.delete(run.path);
+            } else {
+                throw new IOException("Index has no run for games " + end + " to " + run.firstGame);
+            }
+        }
+        return Collections.unmodifiableList(runs);
+    }
+
+    /**
+     * Positions of games which are indexed in memory, before they are sorted and written as a run
+     */
+    private final class Batch {
+
+        private long[] hashes = new long[1024];
+        private int[] games = new int[1024];
+        private byte[] results = new byte[64];
+        private int size;
+
+        private void add(GameArchive archive, int game, int number) {
+            final Board board = archive.createBoard(game);
+            final int start = size;
+
+            if (number == results.length) {
+                results = Arrays.copyOf(results, number * 2);
+            }
+            results[number] = (byte) GameArchive.getResultCode(archive.getResult(game));
+
+            add(board.hash(), number);
+            archive.replay(game, board, plies, move -> add(board.hash(), number));
+
+            // a game counts once for a position it repeats
+            Arrays.sort(hashes, start, size);
+            int unique = start;
+            for (int i = start; i < size; i++) {
+                if (i == start || hashes[i] != hashes[unique - 1]) {
+                    hashes[unique++] = hashes[i];
+                }
+            }
+            size = unique;
+        }
+
+        private void add(long hash, int game) {
+            if (size == hashes.length) {
+                hashes = Arrays.copyOf(hashes, size * 2);
+                games = Arrays.copyOf(games, size * 2);
+            }
+            hashes[size] = hash;
+            games[size++] = game;
+        }
+
+        private Path write(int firstGame, int endGame) throws IOException {
+            sort();
+
+            final RunWriter writer = new RunWriter();
+            for (int i = 0; i < size; ) {
+                int end = i;
+                int whiteWins = 0;
+                int draws = 0;
+                int blackWins = 0;
+
+                for (; end < size && hashes[end] == hashes[i]; end++) {
+                    final int result = results[games[end]];
+                    whiteWins += result == 1 ? 1 : 0;
+                    blackWins += result == 2 ? 1 : 0;
+                    draws += result == 3 ? 1 : 0;
+                }
+
+                writer.addKey(hashes[i], new PositionStats(end - i, whiteWins, draws, blackWins));
+                for (; i < end; i++) {
+                    writer.addGame(firstGame + games[i]);
+                }
+            }
+            return writer.finish(firstGame, endGame);
+        }
+
+        /**
+         * Sort the positions by hash, keeping the games of a position in order, with a bottom-up merge sort
+         */
+        private void sort() {
+            long[] hashes = this.hashes;
+            int[] games = this.games;
+            long[] sortedHashes = new long[size];
+            int[] sortedGames = new int[size];
+
+            for (int width = 1; width < size; width <<= 1) {
+                for (int low = 0; low < size; low += width << 1) {
+                    final int middle = Math.min(low + width, size);
+                    final int high = Math.min(low + (width << 1), size);
+                    int i = low;
+                    int j = middle;
+
+                    for (int k = low; k < high; k++) {
+                        if (j >= high || (i < middle && hashes[i] <= hashes[j])) {
+                            sortedHashes[k] = hashes[i];
+                            sortedGames[k] = games[i++];
+                        } else {
+                            sortedHashes[k] = hashes[j];
+                            sortedGames[k] = games[j++];
+                        }
+                    }
+                }
+
+                final long[] swapHashes = hashes;
+                hashes = sortedHashes;
+                sortedHashes = swapHashes;
+                final int[] swapGames = games;
+                games = sortedGames;
+                sortedGames = swapGames;
+            }
+
+            this.hashes = hashes;
+            this.games = games;
+        }
+
+        private void clear() {
+            size = 0;
+        }
+    }
+
+    /**
+     * Writes the keys and the game numbers of a run to temporary files, and joins them into a run at the end, so
+     * runs are written in a single pass. A run only gets its name once it's complete.
+     */
+    private final class RunWriter {
+
+        private final Path keyPath;
+        private final Path gamePath;
+        private final DataOutputStream keys;
+        private final DataOutputStream games;
+        private int keyCount;
+        private int entryCount;
+
+        private RunWriter() throws IOException {
+            this.keyPath = Files.createTempFile(directory, "keys", ".tmp");
+            this.gamePath = Files.createTempFile(directory, "games", ".tmp");
+            this.keys = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(keyPath), 1 << 16));
+            this.games = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(gamePath), 1 << 16));
+        }
+
+        private void addKey(long hash, PositionStats stats) throws IOException {
+            keys.writeLong(hash);
+            keys.writeInt(entryCount);
+            keys.writeInt(stats.getCount());
+            keys.writeInt(stats.getWhiteWins());
+            keys.writeInt(stats.getDraws());
+            keys.writeInt(stats.getBlackWins());
+            keyCount++;
+        }
+
+        private void addGame(int game) throws IOException {
+            games.writeInt(game);
+            entryCount++;
+        }
+
+        private Path finish(int firstGame, int endGame) throws IOException {
+            keys.close();
+            games.close();
+
+            try {
+                if (HEADER_SIZE + (long) keyCount * KEY_SIZE + entryCount * 4L > Integer.MAX_VALUE) {
+                    throw new IOException("Run of games " + firstGame + " to " + endGame + " is larger than 2 GB");
+                }
+
+                final Path path = directory.resolve(String.format("%010d-%010d.run", firstGame, endGame));
+                final Path temporary = Files.createTempFile(directory, "run", ".tmp");
+
+                try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+                    final ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+                    header.putInt(MAGIC).putInt(VERSION).putInt(firstGame).putInt(endGame).putInt(keyCount).putInt(entryCount).flip();
+                    out.write(header);
+
+                    transfer(keyPath, out);
+                    transfer(gamePath, out);
+                    out.force(true);
+                }
+                return Files.move(temporary, path, StandardCopyOption.ATOMIC_MOVE);
+            } finally {
+                Files.deleteIfExists(keyPath);
+                Files.deleteIfExists(gamePath);
+            }
+        }
+
+        private void transfer(Path from, FileChannel to) throws IOException {
+            try (FileChannel in = FileChannel.open(from, StandardOpenOption.READ)) {
+                for (long position = 0; position < in.size(); ) {
+                    position += in.transferTo(position, in.size() - position, to);
+                }
+            }
+        }
+    }
+
+    /**
+     * A memory-mapped run, read with absolute reads only
+     */
+    private static final class Run {
+
+        private final Path path;
+        private final ByteBuffer buffer;
+        private final int firstGame;
+        private final int endGame;
+        private final int keyCount;
+        private final int entries;
+
+        private Run(Path path) throws IOException {
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+                if (channel.size() < HEADER_SIZE || channel.size() > Integer.MAX_VALUE) {
+                    throw new IOException(path + " is not a run");
+                }
+
+                this.path = path;
+                this.buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+                this.firstGame = buffer.getInt(8);
+                this.endGame = buffer.getInt(12);
+                this.keyCount = buffer.getInt(16);
+                this.entries = HEADER_SIZE + keyCount * KEY_SIZE;
+
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION
+                        || entries + buffer.getInt(20) * 4L != channel.size()) {
+                    throw new IOException(path + " is not a run of this version");
+                }
+            }
+        }
+
+        private long getHash(int key) {
+            return buffer.getLong(HEADER_SIZE + key * KEY_SIZE);
+        }
+
+        private int getFirstEntry(int key) {
+            return buffer.getInt(HEADER_SIZE + key * KEY_SIZE + 8);
+        }
+
+        private int getEntryCount(int key) {
+            return buffer.getInt(HEADER_SIZE + key * KEY_SIZE + 12);
+        }
+
+        private PositionStats getStats(int key) {
+            final int offset = HEADER_SIZE + key * KEY_SIZE + 12;
+            return new PositionStats(buffer.getInt(offset), buffer.getInt(offset + 4), buffer.getInt(offset + 8), buffer.getInt(offset + 12));
+        }
+
+        private int getGame(int entry) {
+            return buffer.getInt(entries + entry * 4);
+        }
+
+        private int find(long hash) {
+            int low = 0;
+            int high = keyCount - 1;
+
+            while (low <= high) {
+                final int middle = (low + high) >>> 1;
+                final long key = getHash(middle);
+
+                if (key < hash) {
+                    low = middle + 1;
+                } else if (key > hash) {
+                    high = middle - 1;
+                } else {
+                    return middle;
+                }
+            }
+            return -1;
+        }
+    }
+}
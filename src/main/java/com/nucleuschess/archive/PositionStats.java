@@ -0,0 +1,72 @@
+package com.nucleuschess.archive;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * How often a position was reached in the games of a {@link PositionIndex}, and how those games ended. Every game
+ * counts once, even when it repeats the position.
+ */
+public final class PositionStats {
+
+    public static final PositionStats EMPTY = new PositionStats(0, 0, 0, 0);
+
+    private final int count;
+    private final int whiteWins;
+    private final int draws;
+    private final int blackWins;
+
+    PositionStats(int count, int whiteWins, int draws, int blackWins) {
+        this.count = count;
+        this.whiteWins = whiteWins;
+        this.draws = draws;
+        this.blackWins = blackWins;
+    }
+
+    /**
+     * Get the number of games, including games without a result
+     */
+    public int getCount() {
+        return count;
+    }
+
+    public int getWhiteWins() {
+        return whiteWins;
+    }
+
+    public int getDraws() {
+        return draws;
+    }
+
+    public int getBlackWins() {
+        return blackWins;
+    }
+
+    /**
+     * Get the score of white in the games with a result, from 0 to 1
+     */
+    public double getScore() {
+        final int results = whiteWins + draws + blackWins;
+        return results == 0 ? 0.5 : (whiteWins + draws * 0.5) / results;
+    }
+
+    PositionStats add(PositionStats stats) {
+        return new PositionStats(count + stats.count, whiteWins + stats.whiteWins, draws + stats.draws, blackWins + stats.blackWins);
+    }
+
+    @Override
+    public String toString() {
+        return count + " games, +" + whiteWins + " =" + draws + " -" + blackWins;
+    }
+}
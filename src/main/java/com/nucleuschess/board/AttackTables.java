@@ -0,0 +1,170 @@
+package com.nucleuschess.board;
+
+import com.nucleuschess.Color;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Lookup tables with the attacks and lines of every square on an empty board, indexed by {@link Position#ordinal()}.
+ * All tables are computed once when this class is loaded.
+ */
+public final class AttackTables {
+
+    private static final PositionFace[] DIRECTIONS = {
+            PositionFace.NORTH, PositionFace.NORTH_EAST, PositionFace.EAST, PositionFace.SOUTH_EAST,
+            PositionFace.SOUTH, PositionFace.SOUTH_WEST, PositionFace.WEST, PositionFace.NORTH_WEST
+    };
+
+    private static final long[] KNIGHT = new long[64];
+    private static final long[] KING = new long[64];
+    private static final long[][] PAWN = new long[2][64];
+    private static final long[][] PAWN_PUSHES = new long[2][64];
+
+    private static final long[][] RAYS = new long[DIRECTIONS.length][64];
+    private static final long[] ROOK = new long[64];
+    private static final long[] BISHOP = new long[64];
+
+    private static final long[][] BETWEEN = new long[64][64];
+    private static final long[][] LINE = new long[64][64];
+
+    static {
+        for (int square = 0; square < 64; square++) {
+            final long bit = 1L << square;
+
+            KNIGHT[square] = Bitboards.knightAttacks(bit);
+            KING[square] = Bitboards.kingAttacks(bit);
+
+            for (Color color : Color.values()) {
+                final long single = color == Color.WHITE ? Bitboards.north(bit) : Bitboards.south(bit);
+                final long twice = color == Color.WHITE ? Bitboards.north(single) : Bitboards.south(single);
+
+                PAWN[color.ordinal()][square] = Bitboards.pawnAttacks(bit, color);
+                PAWN_PUSHES[color.ordinal()][square] = single | twice;
+            }
+
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                final PositionFace face = DIRECTIONS[direction];
+                long ray = 0L;
+
+                for (int x = square % 8 + face.getModX(), y = square / 8 + face.getModY();
+                     x >= 0 && x < 8 && y >= 0 && y < 8;
+                     x += face.getModX(), y += face.getModY()) {
+                    ray |= 1L << (y * 8 + x);
+                }
+
+                RAYS[direction][square] = ray;
+
+                if (face.getModX() == 0 || face.getModY() == 0) {
+                    ROOK[square] |= ray;
+                } else {
+                    BISHOP[square] |= ray;
+                }
+            }
+        }
+
+        for (int from = 0; from < 64; from++) {
+            for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                final long ray = RAYS[direction][from];
+                final int opposite = (direction + DIRECTIONS.length / 2) % DIRECTIONS.length;
+
+                for (long targets = ray; targets != 0; targets &= targets - 1) {
+                    final int to = Long.numberOfTrailingZeros(targets);
+
+                    BETWEEN[from][to] = ray & RAYS[opposite][to];
+                    LINE[from][to] = ray | RAYS[opposite][from] | (1L << from);
+                }
+            }
+        }
+    }
+
+    private AttackTables() {
+    }
+
+    public static long knight(int square) {
+        return KNIGHT[square];
+    }
+
+    public static long king(int square) {
+        return KING[square];
+    }
+
+    /**
+     * Get the squares a pawn attacks diagonally
+     *
+     * @param color  Color of the pawn, which determines the direction it moves in
+     * @param square Square of the pawn
+     * @return Bitboard of the attacked squares
+     */
+    public static long pawn(Color color, int square) {
+        return PAWN[color.ordinal()][square];
+    }
+
+    /**
+     * Get the squares one and two steps in front of a pawn
+     *
+     * @param color  Color of the pawn, which determines the direction it moves in
+     * @param square Square of the pawn
+     * @return Bitboard of the squares the pawn could be pushed to
+     */
+    public static long pawnPushes(Color color, int square) {
+        return PAWN_PUSHES[color.ordinal()][square];
+    }
+
+    /**
+     * Get all squares in one direction from a square up to the edge of the board
+     *
+     * @param face   One of the eight compass directions, for example {@link PositionFace#NORTH_EAST}
+     * @param square Square the ray starts from, which is not part of the ray
+     * @return Bitboard of the ray
+     */
+    public static long ray(PositionFace face, int square) {
+        for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+            if (DIRECTIONS[direction] == face) {
+                return RAYS[direction][square];
+            }
+        }
+        throw new IllegalArgumentException("Face is not a direction: " + face);
+    }
+
+    public static long rook(int square) {
+        return ROOK[square];
+    }
+
+    public static long bishop(int square) {
+        return BISHOP[square];
+    }
+
+    public static long queen(int square) {
+        return ROOK[square] | BISHOP[square];
+    }
+
+    /**
+     * Get the squares strictly in between two squares on the same rank, file or diagonal
+     *
+     * @return Bitboard of the squares in between, or an empty bitboard if the squares are not aligned
+     */
+    public static long between(int from, int to) {
+        return BETWEEN[from][to];
+    }
+
+    /**
+     * Get the complete rank, file or diagonal through two squares
+     *
+     * @return Bitboard of the line including both squares, or an empty bitboard if the squares are not aligned
+     */
+    public static long line(int from, int to) {
+        return LINE[from][to];
+    }
+}
@@ -0,0 +1,160 @@
+package com.nucleuschess.board;
+
+import com.nucleuschess.Color;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Utility class for working with bitboards, a {@code long} in which bit {@code n} represents the square
+ * with {@link Position#ordinal()} {@code n} (so A1 is the least significant bit and H8 the most significant bit).
+ */
+public final class Bitboards {
+
+    public static final long EMPTY = 0L;
+    public static final long FULL = ~0L;
+
+    public static final long FILE_A = 0x0101010101010101L;
+    public static final long FILE_B = FILE_A << 1;
+    public static final long FILE_G = FILE_A << 6;
+    public static final long FILE_H = FILE_A << 7;
+
+    public static final long RANK_1 = 0xFFL;
+    public static final long RANK_2 = RANK_1 << 8;
+    public static final long RANK_7 = RANK_1 << 48;
+    public static final long RANK_8 = RANK_1 << 56;
+
+    private static final long NOT_FILE_A = ~FILE_A;
+    private static final long NOT_FILE_AB = ~(FILE_A | FILE_B);
+    private static final long NOT_FILE_H = ~FILE_H;
+    private static final long NOT_FILE_GH = ~(FILE_G | FILE_H);
+
+    private Bitboards() {
+    }
+
+    public static long of(Position position) {
+        return 1L << position.ordinal();
+    }
+
+    public static boolean contains(long bitboard, int square) {
+        return (bitboard & (1L << square)) != 0;
+    }
+
+    /**
+     * Get the square of the least significant bit of the bitboard
+     *
+     * @param bitboard Bitboard which has at least one bit set
+     * @return Index of the lowest square in the bitboard
+     */
+    public static int first(long bitboard) {
+        return Long.numberOfTrailingZeros(bitboard);
+    }
+
+    public static int count(long bitboard) {
+        return Long.bitCount(bitboard);
+    }
+
+    public static long north(long bitboard) {
+        return bitboard << 8;
+    }
+
+    public static long south(long bitboard) {
+        return bitboard >>> 8;
+    }
+
+    public static long east(long bitboard) {
+        return (bitboard & NOT_FILE_H) << 1;
+    }
+
+    public static long west(long bitboard) {
+        return (bitboard & NOT_FILE_A) >>> 1;
+    }
+
+    public static long knightAttacks(long knights) {
+        final long l1 = (knights >>> 1) & NOT_FILE_H;
+        final long l2 = (knights >>> 2) & NOT_FILE_GH;
+        final long r1 = (knights << 1) & NOT_FILE_A;
+        final long r2 = (knights << 2) & NOT_FILE_AB;
+        final long h1 = l1 | r1;
+        final long h2 = l2 | r2;
+
+        return (h1 << 16) | (h1 >>> 16) | (h2 << 8) | (h2 >>> 8);
+    }
+
+    public static long kingAttacks(long kings) {
+        final long sideways = east(kings) | west(kings);
+        final long row = sideways | kings;
+
+        return sideways | north(row) | south(row);
+    }
+
+    public static long pawnAttacks(long pawns, Color color) {
+        final long forward = color == Color.WHITE ? north(pawns) : south(pawns);
+        return east(forward) | west(forward);
+    }
+
+    /**
+     * Calculate the attacks of a rook by walking every direction until the first occupied square. This is slow,
+     * use {@link MagicBitboards#rook(int, long)} instead; it is only used to set up the lookup tables.
+     */
+    public static long rookAttacks(int square, long occupied) {
+        final long from = 1L << square;
+        long attacks = 0L;
+
+        for (long b = north(from); b != 0; b = north(b)) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = south(from); b != 0; b = south(b)) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = east(from); b != 0; b = east(b)) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = west(from); b != 0; b = west(b)) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        return attacks;
+    }
+
+    /**
+     * Calculate the attacks of a bishop by walking every direction until the first occupied square. This is slow,
+     * use {@link MagicBitboards#bishop(int, long)} instead; it is only used to set up the lookup tables.
+     */
+    public static long bishopAttacks(int square, long occupied) {
+        final long from = 1L << square;
+        long attacks = 0L;
+
+        for (long b = north(east(from)); b != 0; b = north(east(b))) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = north(west(from)); b != 0; b = north(west(b))) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = south(east(from)); b != 0; b = south(east(b))) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        for (long b = south(west(from)); b != 0; b = south(west(b))) {
+            attacks |= b;
+            if ((b & occupied) != 0) break;
+        }
+        return attacks;
+    }
+}
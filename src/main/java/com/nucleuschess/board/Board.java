@@ -4,6 +4,8 @@ import com.google.gson.JsonObject;
 import com.nucleuschess.Color;
 import com.nucleuschess.Core;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
 import com.nucleuschess.move.checker.*;
 import com.nucleuschess.move.finder.*;
 import com.nucleuschess.piece.*;
@@ -11,7 +13,6 @@ import jakarta.websocket.Session;
 
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
 
 import static com.nucleuschess.Color.BLACK;
 import static com.nucleuschess.Color.WHITE;
@@ -31,14 +32,59 @@ import static com.nucleuschess.Color.WHITE;
 */
 
 /**
- * Class representing the Chess-board, with all the squares gathered in a {@link Set<Position>}
+ * Class representing the Chess-board. The placement of the pieces is kept in twelve bitboards (one for every
+ * {@link PieceType} of every {@link Color}) together with occupancy masks, see {@link Bitboards}.
  */
 public final class Board {
 
-    @SuppressWarnings("FieldMayBeFinal")
-    private int moveCounter;
+    // Kinds of moves, as stored in the undo stack
+    private static final int NORMAL = 0;
+    private static final int CASTLING = 1;
+    private static final int EN_PASSANT = 2;
+    private static final int PROMOTION = 3;
+
+    // Letters of the piece types in FEN, indexed by PieceType.ordinal(), in lower case for black
+    private static final String PIECE_LETTERS = "pnbrqk";
+    private static final PieceType[] PIECE_TYPES = PieceType.values();
 
-    private Map<Position, Piece> positionPieceMap;
+    private int moveCounter;
+    private Color sideToMove;
+    private int castlingRights;
+    private int enPassant;
+    private int halfMoveClock;
+
+    // Pieces indexed by Position.ordinal(), and the reverse lookup from a piece to its square
+    private final Piece[] squares;
+    private final Map<Piece, Position> piecePositions;
+    private final Position[] kingPositions;
+
+    // Bitboards, indexed by PieceType.ordinal() * 2 + Color.ordinal()
+    private final long[] pieceBitboards;
+    private final long[] colorBitboards;
+    private long occupied;
+
+    // Zobrist hash of the pieces only, the rest of the state is added in hash()
+    private long pieceHash;
+    private long pawnHash;
+
+    // Sums of the PieceSquareTables of all pieces, and the game phase
+    private int middlegameScore;
+    private int endgameScore;
+    private int phase;
+
+    // Undo stack, with an entry for every move made through makeMove that has not been unmade yet
+    private long[] undoStates;
+    private long[] undoHashes;
+    private Piece[] undoMoved;
+    private Piece[] undoCaptured;
+    private int undoSize;
+
+    // Promoted pieces taken off the board by unmakeMove, indexed like the bitboards and reused by later promotions
+    private final Piece[][] promoted;
+    private final int[] promotedSize;
+
+    // Moves generated to check a single move, see isLegal
+    private final MoveList legalMoves;
 
     // Move checkers
     private final KingMoveChecker kingMoveChecker;
@@ -57,8 +103,25 @@ public final class Board {
     private final PawnMoveFinder pawnMoveFinder;
 
     public Board() {
+        this(true);
+    }
+
+    private Board(boolean setup) {
         this.moveCounter = 1;
-        this.positionPieceMap = new HashMap<>();
+        this.sideToMove = WHITE;
+        this.enPassant = -1;
+        this.squares = new Piece[64];
+        this.piecePositions = new IdentityHashMap<>();
+        this.kingPositions = new Position[2];
+        this.pieceBitboards = new long[12];
+        this.colorBitboards = new long[2];
+        this.undoStates = new long[256];
+        this.undoHashes = new long[256];
+        this.undoMoved = new Piece[256];
+        this.undoCaptured = new Piece[256];
+        this.promoted = new Piece[12][8];
+        this.promotedSize = new int[12];
+        this.legalMoves = new MoveList();
 
         this.kingMoveChecker = new KingMoveChecker(this);
         this.queenMoveChecker = new QueenMoveChecker(this);
@@ -74,53 +137,266 @@ public final class Board {
         this.knightMoveFinder = new KnightMoveFinder(this);
         this.pawnMoveFinder = new PawnMoveFinder(this);
 
-        this.setupBoard();
+        if (setup) {
+            this.setupBoard();
+        }
     }
 
+    /**
+     * Copy a board, including the moves that can be unmade. The pieces themselves are shared by both boards.
+     *
+     * @param b Board to copy
+     */
     public Board(Board b) {
-        this();
-        this.positionPieceMap = b.positionPieceMap;
+        this(false);
+        System.arraycopy(b.squares, 0, this.squares, 0, squares.length);
+        this.piecePositions.clear();
+        this.piecePositions.putAll(b.piecePositions);
+        System.arraycopy(b.kingPositions, 0, this.kingPositions, 0, kingPositions.length);
+        System.arraycopy(b.pieceBitboards, 0, this.pieceBitboards, 0, pieceBitboards.length);
+        System.arraycopy(b.colorBitboards, 0, this.colorBitboards, 0, colorBitboards.length);
+        this.occupied = b.occupied;
+        this.pieceHash = b.pieceHash;
+        this.pawnHash = b.pawnHash;
+        this.middlegameScore = b.middlegameScore;
+        this.endgameScore = b.endgameScore;
+        this.phase = b.phase;
+
+        this.moveCounter = b.moveCounter;
+        this.sideToMove = b.sideToMove;
+        this.castlingRights = b.castlingRights;
+        this.enPassant = b.enPassant;
+        this.halfMoveClock = b.halfMoveClock;
+
+        this.undoStates = b.undoStates.clone();
+        this.undoHashes = b.undoHashes.clone();
+        this.undoMoved = b.undoMoved.clone();
+        this.undoCaptured = b.undoCaptured.clone();
+        this.undoSize = b.undoSize;
     }
 
-    public static void createVisualized(Piece fromWhich, Position from, Move... moves) {
-        final Board tempBoard = new Board();
-        tempBoard.setPiece(fromWhich, from);
+    /**
+     * Copy a board together with its pieces, so the copy shares no state with this board and can be used from
+     * another thread
+     *
+     * @return Independent copy of the board
+     */
+    public Board copy() {
+        final Board copy = new Board(this);
+        final Map<Piece, Piece> pieces = new IdentityHashMap<>();
+
+        copy.piecePositions.clear();
+        for (int square = 0; square < squares.length; square++) {
+            if (squares[square] != null) {
+                final Piece piece = pieces.computeIfAbsent(squares[square], Board::copy);
+
+                copy.squares[square] = piece;
+                copy.piecePositions.put(piece, Position.fromOrdinal(square));
+            }
+        }
 
-        Arrays.stream(moves).forEach(m -> {
-            final Piece piece = m.getPiece();
-            Piece newPiece = null;
+        for (int i = 0; i < undoSize; i++) {
+            copy.undoMoved[i] = pieces.computeIfAbsent(undoMoved[i], Board::copy);
+            copy.undoCaptured[i] = undoCaptured[i] == null ? null : pieces.computeIfAbsent(undoCaptured[i], Board::copy);
+        }
+        return copy;
+    }
 
-            switch (piece.getName()) {
-                case "Pawn":
-                    newPiece = new Pawn(null);
-                    break;
-                case "Knight":
-                    newPiece = new Knight(null);
+    /**
+     * Create a board from a position in Forsyth-Edwards Notation. The text is read character by character, without
+     * splitting it up. The move counters may be left out, as they often are.
+     * <p>
+     * FEN doesn't tell which pieces have moved, so only kings and rooks with castling rights and pawns on their
+     * starting rank are taken as not having moved.
+     *
+     * @param fen Position, such as {@code rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1}
+     * @return Board with the position
+     * @throws IllegalArgumentException If the text is not a valid position, such as a position with pawns on the
+     *                                  last ranks or an en passant square no pawn passed
+     */
+    public static Board fromFen(CharSequence fen) {
+        final Board board = new Board(false);
+        final int length = fen.length();
+        int i = 0;
+
+        // piece placement, from A8 to H1
+        int rank = 7;
+        int file = 0;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            final char c = fen.charAt(i);
+
+            if (c == '/') {
+                if (file != 8 || rank == 0) throw invalidFen(fen, "rank " + (rank + 1) + " does not have 8 squares");
+                rank--;
+                file = 0;
+            } else if (c >= '1' && c <= '8') {
+                file += c - '0';
+            } else {
+                final int type = PIECE_LETTERS.indexOf(Character.toLowerCase(c));
+
+                if (type == -1) throw invalidFen(fen, "unknown piece " + c);
+                if (file > 7) throw invalidFen(fen, "rank " + (rank + 1) + " has more than 8 squares");
+
+                board.add(create(PIECE_TYPES[type], Character.isUpperCase(c) ? WHITE : BLACK), rank << 3 | file);
+                file++;
+            }
+        }
+        if (rank != 0 || file != 8) throw invalidFen(fen, "the board does not have 8 ranks of 8 squares");
+        if (Long.bitCount(board.getBitboard(PieceType.KING, WHITE)) != 1 || Long.bitCount(board.getBitboard(PieceType.KING, BLACK)) != 1) {
+            throw invalidFen(fen, "both colors need one king");
+        }
+        if (((board.getBitboard(PieceType.PAWN, WHITE) | board.getBitboard(PieceType.PAWN, BLACK)) & (Bitboards.RANK_1 | Bitboards.RANK_8)) != 0) {
+            throw invalidFen(fen, "pawns can't stand on the first or last rank");
+        }
+
+        // side to move
+        i = skipSpace(fen, i);
+        if (i >= length || (fen.charAt(i) != 'w' && fen.charAt(i) != 'b')) throw invalidFen(fen, "no side to move");
+        board.sideToMove = fen.charAt(i++) == 'w' ? WHITE : BLACK;
+
+        // castling rights, of which only those with the king and rook in place are kept
+        i = skipSpace(fen, i);
+        int rights = CastlingRights.NONE;
+        for (; i < length && fen.charAt(i) != ' '; i++) {
+            switch (fen.charAt(i)) {
+                case 'K':
+                    rights |= CastlingRights.WHITE_KINGSIDE;
                     break;
-                case "Bishop":
-                    newPiece = new Bishop(null);
+                case 'Q':
+                    rights |= CastlingRights.WHITE_QUEENSIDE;
                     break;
-                case "Rook":
-                    newPiece = new Rook(null);
+                case 'k':
+                    rights |= CastlingRights.BLACK_KINGSIDE;
                     break;
-                case "Queen":
-                    newPiece = new Queen(null);
+                case 'q':
+                    rights |= CastlingRights.BLACK_QUEENSIDE;
                     break;
-                case "King":
-                    newPiece = new King(null);
+                case '-':
                     break;
+                default:
+                    throw invalidFen(fen, "unknown castling right " + fen.charAt(i));
+            }
+        }
+        board.castlingRights = rights & board.getPossibleCastlingRights();
+
+        // en passant square
+        i = skipSpace(fen, i);
+        if (i < length && fen.charAt(i) == '-') {
+            i++;
+        } else if (i + 1 < length && fen.charAt(i) >= 'a' && fen.charAt(i) <= 'h' && fen.charAt(i + 1) == (board.sideToMove == WHITE ? '6' : '3')) {
+            board.enPassant = (fen.charAt(i + 1) - '1') << 3 | (fen.charAt(i) - 'a');
+            i += 2;
+
+            // the pawn which moved two squares stands in front of the square, which it passed with the one behind
+            final int forward = board.sideToMove == WHITE ? -8 : 8;
+            final long passed = 1L << board.enPassant | 1L << (board.enPassant - forward);
+            if ((board.getBitboard(PieceType.PAWN, board.sideToMove.opposite()) & 1L << (board.enPassant + forward)) == 0
+                    || (board.occupied & passed) != 0) {
+                throw invalidFen(fen, "no pawn moved two squares past the en passant square");
             }
+        } else {
+            throw invalidFen(fen, "invalid en passant square");
+        }
 
-            if (newPiece != null) {
-                tempBoard.setPiece(newPiece, m.getTo());
+        // move counters
+        i = skipSpace(fen, i);
+        if (i < length) {
+            board.halfMoveClock = parseNumber(fen, i);
+            i = skipSpace(fen, skipNumber(fen, i));
+            board.moveCounter = i < length ? Math.max(parseNumber(fen, i), 1) : 1;
+        }
+
+        board.setHasMoved();
+        return board;
+    }
+
+    /**
+     * Write the position in Forsyth-Edwards Notation, character by character
+     *
+     * @param out Destination of the text
+     * @throws IOException If the destination fails
+     */
+    public void toFen(Appendable out) throws IOException {
+        for (int rank = 7; rank >= 0; rank--) {
+            int empty = 0;
+
+            for (int file = 0; file < 8; file++) {
+                final Piece piece = squares[rank << 3 | file];
+
+                if (piece == null) {
+                    empty++;
+                    continue;
+                }
+                if (empty > 0) {
+                    out.append((char) ('0' + empty));
+                    empty = 0;
+                }
+
+                final char letter = PIECE_LETTERS.charAt(piece.getType().ordinal());
+                out.append(piece.getColor() == WHITE ? Character.toUpperCase(letter) : letter);
+            }
+            if (empty > 0) {
+                out.append((char) ('0' + empty));
+            }
+            if (rank > 0) {
+                out.append('/');
             }
-        });
+        }
+
+        out.append(' ').append(sideToMove == WHITE ? 'w' : 'b').append(' ');
+
+        if (castlingRights == CastlingRights.NONE) {
+            out.append('-');
+        } else {
+            if ((castlingRights & CastlingRights.WHITE_KINGSIDE) != 0) out.append('K');
+            if ((castlingRights & CastlingRights.WHITE_QUEENSIDE) != 0) out.append('Q');
+            if ((castlingRights & CastlingRights.BLACK_KINGSIDE) != 0) out.append('k');
+            if ((castlingRights & CastlingRights.BLACK_QUEENSIDE) != 0) out.append('q');
+        }
 
-        tempBoard.print(fromWhich.getColor(), from);
+        out.append(' ');
+        if (enPassant == -1) {
+            out.append('-');
+        } else {
+            out.append((char) ('a' + (enPassant & 7))).append((char) ('1' + (enPassant >>> 3)));
+        }
+
+        out.append(' ');
+        appendNumber(out, halfMoveClock);
+        out.append(' ');
+        appendNumber(out, moveCounter);
+    }
+
+    /**
+     * Get the position in Forsyth-Edwards Notation
+     *
+     * @return FEN of the position
+     */
+    public String toFen() {
+        final StringBuilder fen = new StringBuilder(90);
+
+        try {
+            toFen(fen);
+        } catch (IOException e) {
+            // a StringBuilder doesn't throw
+            throw new IllegalStateException(e);
+        }
+        return fen.toString();
+    }
+
+    public static void createVisualized(Piece fromWhich, Position from, Move... moves) {
+        final Board tempBoard = new Board();
+        tempBoard.setPiece(fromWhich, from);
+
+        // the targets of the moves are marked with the code of the moving piece
+        final String[] markers = new String[64];
+        Arrays.stream(moves).forEach(m -> markers[m.getTo().ordinal()] = m.getPiece().getCode());
+
+        tempBoard.print(fromWhich.getColor(), from, markers);
     }
 
     public boolean isEmpty(Position position) {
-        return positionPieceMap.get(position) == null;
+        return (occupied & Bitboards.of(position)) == 0;
     }
 
     public boolean check(Piece piece, Move move) {
@@ -143,25 +419,321 @@ public final class Board {
         throw new IllegalArgumentException("Piece is of unknown type");
     }
 
+    /**
+     * Generate the pseudo-legal moves of the side to move into a list. Moves which leave the own king in check are
+     * included, except castling out of or through check.
+     *
+     * @param moves List the packed moves are added to, see {@link PackedMove}
+     */
+    public void generateMoves(MoveList moves) {
+        final Color color = sideToMove;
+        final long targets = ~getOccupied(color);
+
+        for (long b = getBitboard(PieceType.PAWN, color); b != 0; b &= b - 1) {
+            pawnMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+        for (long b = getBitboard(PieceType.KNIGHT, color); b != 0; b &= b - 1) {
+            knightMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+        for (long b = getBitboard(PieceType.BISHOP, color); b != 0; b &= b - 1) {
+            bishopMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+        for (long b = getBitboard(PieceType.ROOK, color); b != 0; b &= b - 1) {
+            rookMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+        for (long b = getBitboard(PieceType.QUEEN, color); b != 0; b &= b - 1) {
+            queenMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+        for (long b = getBitboard(PieceType.KING, color); b != 0; b &= b - 1) {
+            kingMoveFinder.findMoves(Bitboards.first(b), targets, moves);
+        }
+    }
+
+    /**
+     * Generate the legal moves of the side to move into a list. The checkers, pinned pieces and the squares which
+     * resolve a check are computed once, so every generated move is legal without making it.
+     *
+     * @param moves List the packed moves are added to, see {@link PackedMove}
+     */
+    public void generateLegalMoves(MoveList moves) {
+        generateLegalMoves(moves, Bitboards.FULL);
+    }
+
+    /**
+     * Generate the legal moves of the side to move to some squares only, such as the captures when the squares of
+     * the other color are given. En passant counts as a move to the square of the captured pawn.
+     *
+     * @param moves List the packed moves are added to, see {@link PackedMove}
+     * @param mask  Squares the moves may go to
+     */
+    public void generateLegalMoves(MoveList moves, long mask) {
+        final Color color = sideToMove;
+        final int king = getKing(color).ordinal();
+        final long checkers = getAttackers(king, color.opposite(), occupied);
+
+        // castling is only generated when it's not out of, through or into check, which the finder checks itself
+        final long castling = checkers == 0 ? ~occupied & ~AttackTables.king(king) : 0L;
+        kingMoveFinder.findMoves(king, (getKingTargets(king, color) | castling) & mask, moves);
+
+        // only the king can move out of a double check
+        if (Long.bitCount(checkers) > 1) return;
+
+        // when in check, other pieces have to capture the checker or block its ray
+        final long evasions = checkers == 0 ? ~getOccupied(color) : checkers | AttackTables.between(king, Bitboards.first(checkers));
+        final long pinned = getPinned(king, color);
+
+        for (long b = getOccupied(color) & ~(1L << king); b != 0; b &= b - 1) {
+            final int from = Bitboards.first(b);
+            long targets = (Bitboards.contains(pinned, from) ? evasions & AttackTables.line(king, from) : evasions) & mask;
+
+            if (enPassant != -1 && squares[from].getType() == PieceType.PAWN && Bitboards.contains(AttackTables.pawn(color, from), enPassant)) {
+                // en passant removes two pieces from a rank, so it is checked on its own
+                final int captured = (from & ~7) | (enPassant & 7);
+                targets &= ~(1L << enPassant | 1L << captured);
+
+                if (Bitboards.contains(mask, captured) && isLegalEnPassant(from, captured, king, color)) {
+                    targets |= 1L << enPassant;
+                }
+            }
+            findMoves(from, targets, moves);
+        }
+    }
+
+    /**
+     * Get the squares the piece on a square can move to without leaving its own king in check, disregarding how the
+     * piece moves
+     *
+     * @param square Square of the piece
+     * @return Bitboard of the squares which are not occupied by its own color and keep the king safe, or an empty
+     * bitboard if the square is empty
+     */
+    public long getLegalTargets(int square) {
+        if (squares[square] == null) return Bitboards.EMPTY;
+
+        final Color color = squares[square].getColor();
+        final int king = getKing(color).ordinal();
+
+        if (king == square) {
+            return getKingTargets(king, color);
+        }
+
+        final long checkers = getAttackers(king, color.opposite(), occupied);
+        long targets = ~getOccupied(color);
+
+        if (Long.bitCount(checkers) > 1) return 0L;
+        if (checkers != 0) {
+            targets &= checkers | AttackTables.between(king, Bitboards.first(checkers));
+        }
+        if (Bitboards.contains(getPinned(king, color), square)) {
+            targets &= AttackTables.line(king, square);
+        }
+        return targets;
+    }
+
+    /**
+     * Check whether a packed move is legal in this position, such as a move remembered from another position
+     *
+     * @param move Packed move, see {@link PackedMove}
+     * @return Whether the move is one of the legal moves, including the piece it captures
+     */
+    public boolean isLegal(int move) {
+        if (move == PackedMove.NONE) return false;
+
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final Piece piece = squares[from];
+
+        if (piece == null || piece.getColor() != sideToMove || piece.getType() != PackedMove.getPiece(move)) {
+            return false;
+        }
+
+        // only the moves to the target square are generated
+        final long mask = PackedMove.isEnPassant(move) ? 1L << ((from & ~7) | (to & 7)) : 1L << to;
+        legalMoves.clear();
+        generateLegalMoves(legalMoves, mask);
+        return legalMoves.contains(move);
+    }
+
+    /**
+     * Find the legal move written in long algebraic notation, such as e2e4 or e7e8q
+     *
+     * @param notation Move as written by {@link PackedMove#toString(int)}
+     * @return Packed move, or {@link PackedMove#NONE} if no legal move is written like that
+     */
+    public int parseMove(String notation) {
+        legalMoves.clear();
+        generateLegalMoves(legalMoves);
+
+        for (int i = 0; i < legalMoves.size(); i++) {
+            if (PackedMove.toString(legalMoves.get(i)).equals(notation)) {
+                return legalMoves.get(i);
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    /**
+     * Convert a packed move to a {@link Move}, for code outside of move generation
+     *
+     * @param move Packed move, see {@link PackedMove}
+     * @return Move for the current position
+     */
+    public Move toMove(int move) {
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+
+        return new Move(moveCounter, squares[from], Position.fromOrdinal(from), Position.fromOrdinal(to),
+                PackedMove.isCapture(move), PackedMove.getPromotion(move));
+    }
+
     public void move(Piece piece, Position to) {
         final Position from = getPosition(piece);
-        final Move move = new Move(1, piece, from, to, false);
+        final Move move = new Move(moveCounter, piece, from, to, !isEmpty(to));
 
         if (!check(piece, move)) {
             return;
         }
 
-        this.setEmpty(from);
-        setPiece(piece, to);
+        makeMove(move);
+    }
+
+    /**
+     * Make a move without checking whether it is valid. Castling, en passant and promotions are recognized from
+     * the piece and squares of the move. The move can be taken back with {@link #unmakeMove()}.
+     *
+     * @param move Move to make
+     */
+    public void makeMove(Move move) {
+        make(move.getFrom().ordinal(), move.getTo().ordinal(), move.getPromotion());
+    }
+
+    /**
+     * Make a packed move without checking whether it is valid
+     *
+     * @param move Packed move, see {@link PackedMove}
+     */
+    public void makeMove(int move) {
+        make(PackedMove.getFrom(move), PackedMove.getTo(move), PackedMove.getPromotion(move));
+    }
 
+    /**
+     * Pass the turn to the other side without moving a piece, as used by null move pruning in a search. The null
+     * move is taken back with {@link #unmakeMove()}.
+     */
+    public void makeNullMove() {
+        push((castlingRights << 14 | (enPassant + 1) << 18) | (long) halfMoveClock << 32, hash(), null, null);
 
-        if (!piece.hasMoved()) {
-            piece.setHasMoved(true);
+        halfMoveClock++;
+        enPassant = -1;
+
+        if (sideToMove == BLACK) {
+            moveCounter++;
         }
+        sideToMove = sideToMove.opposite();
+    }
+
+    /**
+     * Take back the last move made with {@link #makeMove(Move)}, {@link #makeMove(int)} or {@link #makeNullMove()},
+     * restoring the captured piece, castling rights, en passant square and whether the pieces have moved
+     */
+    public void unmakeMove() {
+        if (undoSize == 0) {
+            throw new IllegalStateException("There is no move to unmake");
+        }
+
+        final int index = --undoSize;
+        final long state = undoStates[index];
+        final Piece piece = undoMoved[index];
+        final Piece captured = undoCaptured[index];
+
+        undoMoved[index] = null;
+        undoCaptured[index] = null;
+
+        final int from = (int) (state & 0x3F);
+        final int to = (int) (state >>> 6 & 0x3F);
+        final int kind = (int) (state >>> 12 & 0x3);
+
+        sideToMove = sideToMove.opposite();
+        if (sideToMove == BLACK) {
+            moveCounter--;
+        }
+
+        castlingRights = (int) (state >>> 14 & 0xF);
+        enPassant = (int) (state >>> 18 & 0x7F) - 1;
+        halfMoveClock = (int) (state >>> 32);
+
+        // a null move didn't move any piece
+        if (piece == null) {
+            return;
+        }
+
+        if (kind == CASTLING) {
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            final int rookTo = (from + to) / 2;
+            final Piece rook = squares[rookTo];
+
+            remove(rook, rookTo);
+            add(rook, rookFrom);
+            setHasMoved(rook, (state >>> 26 & 1) != 0);
+        }
+
+        if (kind == PROMOTION) {
+            release(squares[to]);
+        }
+        remove(squares[to], to);
+        add(piece, from);
+
+        if (captured != null) {
+            add(captured, kind == EN_PASSANT ? (from & ~7) | (to & 7) : to);
+        }
+
+        setHasMoved(piece, (state >>> 25 & 1) != 0);
+
+        // removing and adding the pieces changed the castling rights
+        castlingRights = (int) (state >>> 14 & 0xF);
+    }
+
+    /**
+     * Check whether the position occurred before since the last capture or pawn move, with the same side to move
+     *
+     * @return Whether the position is a repetition
+     */
+    public boolean isRepetition() {
+        final long hash = hash();
+        final int limit = Math.max(undoSize - halfMoveClock, 0);
+
+        for (int i = undoSize - 2; i >= limit; i -= 2) {
+            if (undoHashes[i] == hash) {
+                return true;
+            }
+        }
+        return false;
     }
 
     public <T extends Piece> T setPiece(T piece, Position position) {
-        positionPieceMap.put(position, piece);
+        if (piece != null && piece.getColor() == null) {
+            throw new IllegalArgumentException("Piece does not have a color");
+        }
+
+        final Piece previous = squares[position.ordinal()];
+
+        if (previous == piece) {
+            return piece;
+        }
+
+        if (previous != null) {
+            remove(previous, position.ordinal());
+        }
+
+        if (piece != null) {
+            // a piece can only stand on one square at a time
+            final Position current = piecePositions.get(piece);
+
+            if (current != null) {
+                remove(piece, current.ordinal());
+            }
+            add(piece, position.ordinal());
+        }
         return piece;
     }
 
@@ -171,131 +743,503 @@ public final class Board {
 
     @SuppressWarnings("unchecked")
     public <T extends Piece> T getPiece(Position position) {
-        return (T) this.positionPieceMap.get(position);
+        return (T) this.squares[position.ordinal()];
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends Piece> T getPiece(int square) {
+        return (T) this.squares[square];
     }
 
     public Position getKing(Color c) {
-        for (Map.Entry<Position, Piece> entry : positionPieceMap.entrySet()) {
-            if (entry.getValue() instanceof King && entry.getValue().getColor().equals(c)) {
-                return entry.getKey();
-            }
+        final Position king = kingPositions[c.ordinal()];
+
+        if (king == null) {
+            throw new IllegalStateException("Cannot find King for color " + c.name());
         }
-        throw new IllegalStateException("Cannot find King for color " + c.name());
+        return king;
     }
 
     public Position getPosition(Piece piece) {
-        return positionPieceMap.entrySet().stream().filter(e -> e.getValue() != null && e.getValue().equals(piece)).map(Map.Entry::getKey).findFirst().orElseThrow();
+        final Position position = piecePositions.get(piece);
+
+        if (position == null) {
+            throw new NoSuchElementException("No value present");
+        }
+        return position;
     }
 
     public boolean isInCheck(Color color) {
-        final Position kingPosition = getKing(color);
+        return getCheckers(color) != 0;
+    }
 
-        for (Piece piece : positionPieceMap.values().stream().filter(p -> p != null && !p.getColor().equals(color)).collect(Collectors.toList())) {
-            if (Arrays.stream(getPotentialMoves(piece)).filter(m -> check(piece, m)).map(Move::getTo).anyMatch(p -> p.equals(kingPosition))) {
-                return true;
-            }
-        }
-        return false;
+    /**
+     * Get the pieces giving check to the king of a color
+     *
+     * @param color Color of the king
+     * @return Bitboard of the squares of the checking pieces
+     */
+    public long getCheckers(Color color) {
+        return getAttackers(getKing(color).ordinal(), color.opposite(), occupied);
     }
 
-    public Position[] getPositionsHorizontally(Position from, int endFile) {
-        return Arrays.stream(Position.valuesOf(from.getRank())).filter(p -> p.getFileNumber() >= from.getFileNumber() && p.getFileNumber() <= endFile).toArray(Position[]::new);
+    /**
+     * Get the pieces which are pinned to the king of their color, so they can only move along the pin
+     *
+     * @param color Color of the king and pinned pieces
+     * @return Bitboard of the squares of the pinned pieces
+     */
+    public long getPinned(Color color) {
+        return getPinned(getKing(color).ordinal(), color);
     }
 
-    public Position[] getPositionsVertically(Position from, int endRank) {
-        return Arrays.stream(Position.valuesOf(from.getFile())).filter(p -> p.getRank() >= from.getRank() && p.getRank() <= endRank).toArray(Position[]::new);
+    /**
+     * Get all pieces of the given color attacking a square
+     *
+     * @param position Square which is attacked
+     * @param by       Color of the attacking pieces
+     * @return Bitboard of the squares of the attacking pieces
+     */
+    public long getAttackers(Position position, Color by) {
+        return getAttackers(position.ordinal(), by, occupied);
     }
 
-    public Position[] getPositionsDiagonally(Position start) {
-        final Set<Position> positions = new HashSet<>();
+    /**
+     * Get all pieces of the given color attacking a square, with sliding attacks blocked by the given occupancy
+     * instead of the pieces on the board
+     *
+     * @param square   Square which is attacked
+     * @param by       Color of the attacking pieces
+     * @param occupied Bitboard of the squares which block sliding pieces
+     * @return Bitboard of the squares of the attacking pieces
+     */
+    public long getAttackers(int square, Color by, long occupied) {
+        final long queens = getBitboard(PieceType.QUEEN, by);
+
+        return (AttackTables.pawn(by.opposite(), square) & getBitboard(PieceType.PAWN, by))
+                | (AttackTables.knight(square) & getBitboard(PieceType.KNIGHT, by))
+                | (AttackTables.king(square) & getBitboard(PieceType.KING, by))
+                | (MagicBitboards.rook(square, occupied) & (getBitboard(PieceType.ROOK, by) | queens))
+                | (MagicBitboards.bishop(square, occupied) & (getBitboard(PieceType.BISHOP, by) | queens));
+    }
 
-        final PositionFace[] faces = new PositionFace[]{
-                PositionFace.NORTH_EAST, PositionFace.NORTH_WEST,
-                PositionFace.SOUTH_EAST, PositionFace.SOUTH_WEST
-        };
+    public boolean isAttacked(int square, Color by) {
+        return getAttackers(square, by, occupied) != 0;
+    }
 
-        final int x = start.getFileNumber();
-        final int y = start.getRank();
+    public long getBitboard(PieceType type, Color color) {
+        return pieceBitboards[index(type, color)];
+    }
 
-        final int stepsNorth = 8 - y;
-        final int stepsSouth = y - 1;
+    public long getOccupied(Color color) {
+        return colorBitboards[color.ordinal()];
+    }
 
-        final int stepsEast = 8 - x;
-        final int stepsWest = x - 1;
+    public long getOccupied() {
+        return occupied;
+    }
 
-        final int biggest = max(stepsNorth, stepsSouth, stepsEast, stepsWest);
+    public Position[] getPositionsHorizontally(Position from, int endFile) {
+        return toPositions(getHorizontalMask(from, endFile));
+    }
 
-        for (int i = 0; i < biggest; i++) {
-            int finalI = i + 1;
-            Arrays.stream(faces).filter(f -> start.isRelative(f, finalI)).map(f -> start.getRelative(f, finalI)).forEach(positions::add);
-        }
+    public Position[] getPositionsVertically(Position from, int endRank) {
+        return toPositions(getVerticalMask(from, endRank));
+    }
 
-        return positions.toArray(Position[]::new);
+    public Position[] getPositionsDiagonally(Position start) {
+        return toPositions(AttackTables.bishop(start.ordinal()));
     }
 
     @SuppressWarnings("unchecked")
     public <T extends Piece> T getObstructionHorizontally(Position from, int endFile) {
         if (!hasObstructionHorizontally(from, endFile)) return null;
-        return (T) Arrays.stream(getPositionsHorizontally(from, endFile))
-                .filter(p -> p != from)
-                .filter(p -> !isEmpty(p)).findAny().map(this::getPiece).orElseThrow();
+        return (T) squares[Bitboards.first(getHorizontalMask(from, endFile) & occupied & ~Bitboards.of(from))];
     }
 
     @SuppressWarnings("unchecked")
     public <T extends Piece> T getObstructionVertically(Position from, int endFile) {
         if (!hasObstructionVertically(from, endFile)) return null;
-        return (T) Arrays.stream(getPositionsVertically(from, endFile))
-                .filter(p -> p != from)
-                .filter(p -> !isEmpty(p)).findAny().map(this::getPiece).orElseThrow();
+        return (T) squares[Bitboards.first(getVerticalMask(from, endFile) & occupied & ~Bitboards.of(from))];
     }
 
     public boolean hasObstructionHorizontally(Position from, int endFile) {
-        return hasObstruction0(getPositionsHorizontally(from, endFile));
+        return Bitboards.count(getHorizontalMask(from, endFile) & occupied) > 1;
     }
 
     public boolean hasObstructionVertically(Position from, int endRank) {
-        return hasObstruction0(getPositionsVertically(from, endRank));
+        return Bitboards.count(getVerticalMask(from, endRank) & occupied) > 1;
     }
 
     public boolean hasObstructionDiagonally(Position start, Position end) {
-        int xChange = end.getFileNumber() - start.getFileNumber();
-        int yChange = end.getRank() - start.getRank();
+        return (AttackTables.between(start.ordinal(), end.ordinal()) & occupied) != 0;
+    }
 
-        int steps = Math.abs(start.getRank() - end.getRank());
-        int[] direction = getDirection(xChange, yChange);
+    private long getHorizontalMask(Position from, int endFile) {
+        final int steps = Math.min(endFile, 8) - from.getFileNumber();
+        return steps < 0 ? 0L : getRangeMask(from.ordinal(), from.ordinal() + steps);
+    }
 
-        for (int i = 0; i < steps; i++) {
-            final Position position = Position.valueOf(start.getFileNumber() + direction[0], start.getRank() + direction[1]);
-            if (position != start && !isEmpty(position)) return true;
+    private long getVerticalMask(Position from, int endRank) {
+        final int steps = Math.min(endRank, 8) - from.getRank();
+        return steps < 0 ? 0L : getRangeMask(from.ordinal(), from.ordinal() + steps * 8);
+    }
+
+    private long getRangeMask(int from, int to) {
+        return AttackTables.between(from, to) | 1L << from | 1L << to;
+    }
+
+    private Position[] toPositions(long bitboard) {
+        final Position[] positions = new Position[Bitboards.count(bitboard)];
+
+        for (int i = 0; bitboard != 0; bitboard &= bitboard - 1, i++) {
+            positions[i] = Position.fromOrdinal(Bitboards.first(bitboard));
         }
-        return false;
+        return positions;
+    }
+
+    private void make(int from, int to, PieceType promotion) {
+        final Piece piece = squares[from];
+
+        if (piece == null) {
+            throw new IllegalArgumentException("There is no piece on " + Position.fromOrdinal(from));
+        }
+
+        Piece captured = squares[to];
+        int capturedSquare = to;
+        int kind = NORMAL;
+
+        if (piece.getType() == PieceType.PAWN) {
+            if (to == enPassant) {
+                // the captured pawn is next to the moving pawn, not on the target square
+                kind = EN_PASSANT;
+                capturedSquare = (from & ~7) | (to & 7);
+                captured = squares[capturedSquare];
+            } else if (to < 8 || to >= 56) {
+                kind = PROMOTION;
+            }
+        } else if (piece.getType() == PieceType.KING && Math.abs(to - from) == 2) {
+            kind = CASTLING;
+        }
+
+        final long hash = hash();
+        long state = from | to << 6 | kind << 12 | castlingRights << 14 | (enPassant + 1) << 18
+                | (piece.hasMoved() ? 1 : 0) << 25 | (long) halfMoveClock << 32;
+
+        if (captured != null) {
+            remove(captured, capturedSquare);
+        }
+
+        remove(piece, from);
+        add(kind == PROMOTION ? promote(piece, promotion) : piece, to);
+        setHasMoved(piece, true);
+
+        if (kind == CASTLING) {
+            final int rookFrom = to > from ? from + 3 : from - 4;
+            final int rookTo = (from + to) / 2;
+            final Piece rook = squares[rookFrom];
+
+            state |= (rook.hasMoved() ? 1L : 0L) << 26;
+
+            remove(rook, rookFrom);
+            add(rook, rookTo);
+            setHasMoved(rook, true);
+        }
+
+        push(state, hash, piece, captured);
+
+        halfMoveClock = piece.getType() == PieceType.PAWN || captured != null ? 0 : halfMoveClock + 1;
+        enPassant = piece.getType() == PieceType.PAWN && Math.abs(to - from) == 16 ? (from + to) / 2 : -1;
+
+        if (sideToMove == BLACK) {
+            moveCounter++;
+        }
+        sideToMove = sideToMove.opposite();
+    }
+
+    private void findMoves(int from, long targets, MoveList moves) {
+        switch (squares[from].getType()) {
+            case PAWN:
+                pawnMoveFinder.findMoves(from, targets, moves);
+                break;
+            case KNIGHT:
+                knightMoveFinder.findMoves(from, targets, moves);
+                break;
+            case BISHOP:
+                bishopMoveFinder.findMoves(from, targets, moves);
+                break;
+            case ROOK:
+                rookMoveFinder.findMoves(from, targets, moves);
+                break;
+            case QUEEN:
+                queenMoveFinder.findMoves(from, targets, moves);
+                break;
+            case KING:
+                kingMoveFinder.findMoves(from, targets, moves);
+                break;
+        }
+    }
+
+    private long getPinned(int king, Color color) {
+        final Color by = color.opposite();
+        final long queens = getBitboard(PieceType.QUEEN, by);
+        final long snipers = (AttackTables.rook(king) & (getBitboard(PieceType.ROOK, by) | queens))
+                | (AttackTables.bishop(king) & (getBitboard(PieceType.BISHOP, by) | queens));
+        long pinned = 0L;
+
+        for (long b = snipers; b != 0; b &= b - 1) {
+            final long blockers = AttackTables.between(king, Bitboards.first(b)) & occupied;
+
+            // a piece is pinned when it's the only piece between the king and an enemy slider
+            if (blockers != 0 && (blockers & (blockers - 1)) == 0) {
+                pinned |= blockers & getOccupied(color);
+            }
+        }
+        return pinned;
+    }
+
+    private long getKingTargets(int king, Color color) {
+        // the king is left out of the occupancy, so it can't step back along the ray of a slider checking it
+        final long occupancy = occupied & ~(1L << king);
+        long targets = 0L;
+
+        for (long b = AttackTables.king(king) & ~getOccupied(color); b != 0; b &= b - 1) {
+            final int to = Bitboards.first(b);
+
+            if (getAttackers(to, color.opposite(), occupancy) == 0) {
+                targets |= 1L << to;
+            }
+        }
+        return targets;
+    }
+
+    private boolean isLegalEnPassant(int from, int captured, int king, Color color) {
+        final long occupancy = (occupied & ~(1L << from | 1L << captured)) | 1L << enPassant;
+        return (getAttackers(king, color.opposite(), occupancy) & ~(1L << captured)) == 0;
+    }
+
+    private void push(long state, long hash, Piece moved, Piece captured) {
+        if (undoSize == undoStates.length) {
+            undoStates = Arrays.copyOf(undoStates, undoSize * 2);
+            undoHashes = Arrays.copyOf(undoHashes, undoSize * 2);
+            undoMoved = Arrays.copyOf(undoMoved, undoSize * 2);
+            undoCaptured = Arrays.copyOf(undoCaptured, undoSize * 2);
+        }
+
+        undoStates[undoSize] = state;
+        undoHashes[undoSize] = hash;
+        undoMoved[undoSize] = moved;
+        undoCaptured[undoSize] = captured;
+        undoSize++;
+    }
+
+    /**
+     * Get the piece a pawn promotes to. Pieces are only created the first time, after that the pieces released by
+     * unmaking a promotion are reused, so searching promotions doesn't allocate pieces and their ids.
+     */
+    private Piece promote(Piece pawn, PieceType type) {
+        if (type == PieceType.PAWN || type == PieceType.KING) {
+            throw new IllegalArgumentException("Cannot promote to " + type);
+        }
+
+        final PieceType promotion = type == null ? PieceType.QUEEN : type;
+        final int index = index(promotion, pawn.getColor());
+
+        if (promotedSize[index] == 0) {
+            return create(promotion, pawn.getColor());
+        }
+
+        final Piece piece = promoted[index][--promotedSize[index]];
+
+        promoted[index][promotedSize[index]] = null;
+        setHasMoved(piece, false);
+        return piece;
+    }
+
+    private void release(Piece piece) {
+        final int index = index(piece.getType(), piece.getColor());
+
+        if (promotedSize[index] == promoted[index].length) {
+            promoted[index] = Arrays.copyOf(promoted[index], promotedSize[index] * 2);
+        }
+        promoted[index][promotedSize[index]++] = piece;
     }
 
-    private boolean hasObstruction0(Position[] positions) {
-        return Arrays.stream(positions).filter(p -> !isEmpty(p)).count() > 1;
+    private static Piece copy(Piece piece) {
+        final Piece copy = create(piece.getType(), piece.getColor());
+
+        setHasMoved(copy, piece.hasMoved());
+        return copy;
     }
 
-    private int[] getDirection(int diffX, int diffY) {
-        int x = diffX >= 0 ? 1 : 0;
-        int y = diffY >= 0 ? 1 : 0;
+    private static Piece create(PieceType type, Color color) {
+        switch (type) {
+            case PAWN:
+                return new Pawn(color);
+            case KNIGHT:
+                return new Knight(color);
+            case BISHOP:
+                return new Bishop(color);
+            case ROOK:
+                return new Rook(color);
+            case QUEEN:
+                return new Queen(color);
+            case KING:
+                return new King(color);
+            default:
+                throw new IllegalArgumentException("Piece is of unknown type");
+        }
+    }
 
-        return new int[]{x, y};
+    @SuppressWarnings("deprecation")
+    private static void setHasMoved(Piece piece, boolean moved) {
+        if (piece.hasMoved() != moved) {
+            piece.setHasMoved(moved);
+        }
     }
 
-    private int max(int... ints) {
-        int current = 0;
+    private void add(Piece piece, int square) {
+        final long bit = 1L << square;
+        final Position position = Position.fromOrdinal(square);
+
+        squares[square] = piece;
+        piecePositions.put(piece, position);
+
+        pieceBitboards[index(piece.getType(), piece.getColor())] |= bit;
+        colorBitboards[piece.getColor().ordinal()] |= bit;
+        occupied |= bit;
+        pieceHash ^= Zobrist.piece(piece.getType(), piece.getColor(), square);
+        middlegameScore += PieceSquareTables.middlegame(piece.getType(), piece.getColor(), square);
+        endgameScore += PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        phase += PieceSquareTables.phase(piece.getType());
+
+        if (piece.getType() == PieceType.PAWN) {
+            pawnHash ^= Zobrist.piece(PieceType.PAWN, piece.getColor(), square);
+        } else if (piece.getType() == PieceType.KING) {
+            kingPositions[piece.getColor().ordinal()] = position;
+        }
+    }
+
+    private void remove(Piece piece, int square) {
+        final long bit = 1L << square;
+
+        squares[square] = null;
+        piecePositions.remove(piece);
+        castlingRights = CastlingRights.update(castlingRights, square);
 
-        for (int i : ints) {
-            current = Math.max(i, current);
+        pieceBitboards[index(piece.getType(), piece.getColor())] &= ~bit;
+        colorBitboards[piece.getColor().ordinal()] &= ~bit;
+        occupied &= ~bit;
+        pieceHash ^= Zobrist.piece(piece.getType(), piece.getColor(), square);
+        middlegameScore -= PieceSquareTables.middlegame(piece.getType(), piece.getColor(), square);
+        endgameScore -= PieceSquareTables.endgame(piece.getType(), piece.getColor(), square);
+        phase -= PieceSquareTables.phase(piece.getType());
+
+        if (piece.getType() == PieceType.PAWN) {
+            pawnHash ^= Zobrist.piece(PieceType.PAWN, piece.getColor(), square);
         }
 
-        return current;
+        if (piece.getType() == PieceType.KING && kingPositions[piece.getColor().ordinal()].ordinal() == square) {
+            final long kings = pieceBitboards[index(PieceType.KING, piece.getColor())];
+            kingPositions[piece.getColor().ordinal()] = kings == 0 ? null : Position.fromOrdinal(Bitboards.first(kings));
+        }
+    }
+
+    /**
+     * Get the castling rights for which the king and the rook are on their starting squares
+     */
+    private int getPossibleCastlingRights() {
+        int rights = CastlingRights.NONE;
+
+        for (Color color : Color.values()) {
+            final int back = color == WHITE ? 0 : 56;
+            final long rooks = getBitboard(PieceType.ROOK, color);
+
+            if (!Bitboards.contains(getBitboard(PieceType.KING, color), back + 4)) continue;
+
+            if (Bitboards.contains(rooks, back + 7)) rights |= CastlingRights.kingside(color);
+            if (Bitboards.contains(rooks, back)) rights |= CastlingRights.queenside(color);
+        }
+        return rights;
+    }
+
+    /**
+     * Mark the pieces of a position which was not reached by moves, as far as the position tells whether they moved
+     */
+    private void setHasMoved() {
+        for (int square = 0; square < 64; square++) {
+            final Piece piece = squares[square];
+            if (piece == null) continue;
+
+            final Color color = piece.getColor();
+            final int back = color == WHITE ? 0 : 56;
+            final boolean moved;
+
+            switch (piece.getType()) {
+                case PAWN:
+                    moved = square >>> 3 != (color == WHITE ? 1 : 6);
+                    break;
+                case KING:
+                    moved = (castlingRights & (CastlingRights.kingside(color) | CastlingRights.queenside(color))) == 0;
+                    break;
+                case ROOK:
+                    moved = !(square == back + 7 && (castlingRights & CastlingRights.kingside(color)) != 0)
+                            && !(square == back && (castlingRights & CastlingRights.queenside(color)) != 0);
+                    break;
+                default:
+                    moved = false;
+                    break;
+            }
+            setHasMoved(piece, moved);
+        }
+    }
+
+    private static int skipSpace(CharSequence fen, int i) {
+        if (i < fen.length() && fen.charAt(i) != ' ') throw invalidFen(fen, "expected a space at " + i);
+
+        while (i < fen.length() && fen.charAt(i) == ' ') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipNumber(CharSequence fen, int i) {
+        while (i < fen.length() && fen.charAt(i) >= '0' && fen.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int parseNumber(CharSequence fen, int i) {
+        final int end = skipNumber(fen, i);
+        if (end == i || end - i > 6) throw invalidFen(fen, "invalid move counter at " + i);
+
+        int number = 0;
+        for (; i < end; i++) {
+            number = number * 10 + fen.charAt(i) - '0';
+        }
+        return number;
+    }
+
+    private static void appendNumber(Appendable out, int number) throws IOException {
+        if (number >= 10) {
+            appendNumber(out, number / 10);
+        }
+        out.append((char) ('0' + number % 10));
+    }
+
+    private static IllegalArgumentException invalidFen(CharSequence fen, String reason) {
+        return new IllegalArgumentException("Invalid FEN '" + fen + "': " + reason);
+    }
+
+    private static int index(PieceType type, Color color) {
+        return type.ordinal() << 1 | color.ordinal();
     }
 
     private void setupBoard() {
         // PAWNS
-        Arrays.stream(Position.valuesOf(2)).forEach(p -> this.setPiece(new Pawn(WHITE), p));
-        Arrays.stream(Position.valuesOf(7)).forEach(p -> this.setPiece(new Pawn(BLACK), p));
+        Position.valuesOf(2).forEach(p -> this.setPiece(new Pawn(WHITE), p));
+        Position.valuesOf(7).forEach(p -> this.setPiece(new Pawn(BLACK), p));
 
         // ROOKS
         this.setPiece(new Rook(WHITE), Position.A1);
@@ -322,6 +1266,8 @@ public final class Board {
         // QUEENS
         this.setPiece(new Queen(WHITE), Position.D1);
         this.setPiece(new Queen(BLACK), Position.D8);
+
+        this.castlingRights = CastlingRights.ALL;
     }
 
     // -----------------------------------------------------------------
@@ -349,6 +1295,10 @@ public final class Board {
 //    }
 
     public void print(Color which, Position whichFrom) {
+        print(which, whichFrom, new String[64]);
+    }
+
+    private void print(Color which, Position whichFrom, String[] markers) {
         if (which != null) {
             System.out.println(which + " to move.");
         }
@@ -365,18 +1315,17 @@ public final class Board {
 
         for (int i = 1, j = 8; i <= 8; i++, j--) {
             System.out.print("| ");
-            Position[] positions = Position.valuesOf(j); // positions of rank j
-
-            Arrays.stream(positions).forEach(p -> {
-                if (isEmpty(p)) {
-                    System.out.print("- ");
-                    return;
-                }
+            List<Position> positions = Position.valuesOf(j); // positions of rank j
 
-                if (whichFrom != null && p == whichFrom) {
+            positions.forEach(p -> {
+                if (whichFrom != null && p == whichFrom && !isEmpty(p)) {
                     System.out.print(Ansi.YELLOW + getPiece(p).getCode() + " " + Ansi.RESET);
+                } else if (markers[p.ordinal()] != null) {
+                    System.out.print(Ansi.GREEN + markers[p.ordinal()] + " " + Ansi.RESET);
+                } else if (isEmpty(p)) {
+                    System.out.print("- ");
                 } else
-                    System.out.print(((getPiece(p).getColor() != null ? (getPiece(p).getColor() == BLACK ? Ansi.BLUE : Ansi.RED) : Ansi.GREEN)) + getPiece(p).getCode() + " " + Ansi.RESET);
+                    System.out.print((getPiece(p).getColor() == BLACK ? Ansi.BLUE : Ansi.RED) + getPiece(p).getCode() + " " + Ansi.RESET);
             });
 
             System.out.println("| " + j);
@@ -389,4 +1338,82 @@ public final class Board {
     public int getMoveCounter() {
         return moveCounter;
     }
+
+    public Color getSideToMove() {
+        return sideToMove;
+    }
+
+    /**
+     * Get the castling rights which are left, as flags of {@link CastlingRights}
+     *
+     * @return Castling rights
+     */
+    public int getCastlingRights() {
+        return castlingRights;
+    }
+
+    /**
+     * Get the square a pawn skipped in the last move, to which it can be captured en passant
+     *
+     * @return Square behind the pawn, or null if the last move was not a double pawn push
+     */
+    public Position getEnPassant() {
+        return enPassant == -1 ? null : Position.fromOrdinal(enPassant);
+    }
+
+    public int getHalfMoveClock() {
+        return halfMoveClock;
+    }
+
+    /**
+     * Get the Zobrist hash of the pawns alone, which changes far less often than {@link #hash()}
+     *
+     * @return 64-bit hash of the pawns of both colors
+     */
+    public long getPawnHash() {
+        return pawnHash;
+    }
+
+    /**
+     * Get the sum of the middlegame {@link PieceSquareTables} of all pieces
+     *
+     * @return Score from the view of white
+     */
+    public int getMiddlegameScore() {
+        return middlegameScore;
+    }
+
+    /**
+     * Get the sum of the endgame {@link PieceSquareTables} of all pieces
+     *
+     * @return Score from the view of white
+     */
+    public int getEndgameScore() {
+        return endgameScore;
+    }
+
+    /**
+     * Get the game phase, from {@link PieceSquareTables#MAX_PHASE} in the opening down to 0 with only pawns left
+     *
+     * @return Game phase, which can be larger than the maximum after promotions
+     */
+    public int getPhase() {
+        return phase;
+    }
+
+    /**
+     * Get the Zobrist hash of the position, covering the pieces, side to move, castling rights and en passant
+     * square. The en passant square only counts when a pawn can actually capture on it, so positions which only
+     * differ in an unusable en passant square hash the same.
+     *
+     * @return 64-bit hash of the position
+     */
+    public long hash() {
+        long hash = pieceHash ^ Zobrist.castling(castlingRights) ^ Zobrist.side(sideToMove);
+
+        if (enPassant != -1 && (AttackTables.pawn(sideToMove.opposite(), enPassant) & getBitboard(PieceType.PAWN, sideToMove)) != 0) {
+            hash ^= Zobrist.enPassant(enPassant);
+        }
+        return hash;
+    }
 }
@@ -0,0 +1,68 @@
+package com.nucleuschess.board;
+
+import com.nucleuschess.Color;
+
+import java.util.Arrays;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Castling rights packed in four bits, one for each side of each color.
+ */
+public final class CastlingRights {
+
+    public static final int NONE = 0;
+    public static final int WHITE_KINGSIDE = 1;
+    public static final int WHITE_QUEENSIDE = 2;
+    public static final int BLACK_KINGSIDE = 4;
+    public static final int BLACK_QUEENSIDE = 8;
+    public static final int ALL = 15;
+
+    // Rights which remain when a piece leaves or arrives at a square
+    private static final int[] MASKS = new int[64];
+
+    static {
+        Arrays.fill(MASKS, ALL);
+
+        MASKS[Position.E1.ordinal()] = ALL & ~(WHITE_KINGSIDE | WHITE_QUEENSIDE);
+        MASKS[Position.H1.ordinal()] = ALL & ~WHITE_KINGSIDE;
+        MASKS[Position.A1.ordinal()] = ALL & ~WHITE_QUEENSIDE;
+        MASKS[Position.E8.ordinal()] = ALL & ~(BLACK_KINGSIDE | BLACK_QUEENSIDE);
+        MASKS[Position.H8.ordinal()] = ALL & ~BLACK_KINGSIDE;
+        MASKS[Position.A8.ordinal()] = ALL & ~BLACK_QUEENSIDE;
+    }
+
+    private CastlingRights() {
+    }
+
+    /**
+     * Remove the rights that are lost when the king or a rook leaves or is captured on a square
+     *
+     * @param rights Current castling rights
+     * @param square Square a piece leaves or is removed from
+     * @return Remaining castling rights
+     */
+    public static int update(int rights, int square) {
+        return rights & MASKS[square];
+    }
+
+    public static int kingside(Color color) {
+        return color == Color.WHITE ? WHITE_KINGSIDE : BLACK_KINGSIDE;
+    }
+
+    public static int queenside(Color color) {
+        return color == Color.WHITE ? WHITE_QUEENSIDE : BLACK_QUEENSIDE;
+    }
+}
@@ -0,0 +1,147 @@
+package com.nucleuschess.board;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Sliding piece attacks through magic bitboards. The relevant occupancy of a square is multiplied by a magic
+ * number and shifted, which gives the index of the attacks in a precomputed table.
+ * <p>
+ * The magic numbers are searched once when this class is loaded, with a fixed seed for every rank so the search
+ * always finds the same numbers and finishes quickly.
+ */
+public final class MagicBitboards {
+
+    private static final int[] SEEDS = {728, 10316, 55013, 32803, 12281, 15100, 16645, 255};
+
+    private static final Magic[] ROOK = new Magic[64];
+    private static final Magic[] BISHOP = new Magic[64];
+
+    private static final long[] ROOK_ATTACKS = new long[0x19000];
+    private static final long[] BISHOP_ATTACKS = new long[0x1480];
+
+    static {
+        initialize(ROOK, ROOK_ATTACKS, true);
+        initialize(BISHOP, BISHOP_ATTACKS, false);
+    }
+
+    private MagicBitboards() {
+    }
+
+    public static long rook(int square, long occupied) {
+        final Magic magic = ROOK[square];
+        return ROOK_ATTACKS[magic.offset + magic.index(occupied)];
+    }
+
+    public static long bishop(int square, long occupied) {
+        final Magic magic = BISHOP[square];
+        return BISHOP_ATTACKS[magic.offset + magic.index(occupied)];
+    }
+
+    public static long queen(int square, long occupied) {
+        return rook(square, occupied) | bishop(square, occupied);
+    }
+
+    private static void initialize(Magic[] magics, long[] table, boolean rook) {
+        final long[] occupancies = new long[4096];
+        final long[] references = new long[4096];
+        final int[] epoch = new int[4096];
+
+        int offset = 0;
+        int attempt = 0;
+
+        for (int square = 0; square < 64; square++) {
+            final long edges = ((Bitboards.RANK_1 | Bitboards.RANK_8) & ~(Bitboards.RANK_1 << (square / 8 * 8)))
+                    | ((Bitboards.FILE_A | Bitboards.FILE_H) & ~(Bitboards.FILE_A << (square % 8)));
+            final long mask = (rook ? AttackTables.rook(square) : AttackTables.bishop(square)) & ~edges;
+            final int bits = Long.bitCount(mask);
+
+            // enumerate all subsets of the mask (Carry-Rippler) with the attacks they lead to
+            int size = 0;
+            long subset = 0L;
+            do {
+                occupancies[size] = subset;
+                references[size] = rook ? Bitboards.rookAttacks(square, subset) : Bitboards.bishopAttacks(square, subset);
+                size++;
+                subset = (subset - mask) & mask;
+            } while (subset != 0);
+
+            final Magic magic = new Magic(mask, 64 - bits, offset);
+            final Random random = new Random(SEEDS[square / 8]);
+
+            for (int i = 0; i < size; ) {
+                for (magic.number = 0; Long.bitCount((magic.number * mask) >>> 56) < 6; ) {
+                    magic.number = random.sparse();
+                }
+
+                // the epoch marks the table entries written in this attempt, so the table is not cleared every time
+                attempt++;
+                for (i = 0; i < size; i++) {
+                    final int index = magic.offset + magic.index(occupancies[i]);
+
+                    if (epoch[index - offset] < attempt) {
+                        epoch[index - offset] = attempt;
+                        table[index] = references[i];
+                    } else if (table[index] != references[i]) {
+                        break;
+                    }
+                }
+            }
+
+            magics[square] = magic;
+            offset += size;
+        }
+    }
+
+    private static final class Magic {
+
+        private final long mask;
+        private final int shift;
+        private final int offset;
+        private long number;
+
+        private Magic(long mask, int shift, int offset) {
+            this.mask = mask;
+            this.shift = shift;
+            this.offset = offset;
+        }
+
+        private int index(long occupied) {
+            return (int) (((occupied & mask) * number) >>> shift);
+        }
+    }
+
+    /**
+     * Xorshift64* generator, for which sparse numbers (few bits set) make good magic candidates
+     */
+    private static final class Random {
+
+        private long seed;
+
+        private Random(long seed) {
+            this.seed = seed;
+        }
+
+        private long next() {
+            seed ^= seed >>> 12;
+            seed ^= seed << 25;
+            seed ^= seed >>> 27;
+            return seed * 2685821657736338717L;
+        }
+
+        private long sparse() {
+            return next() & next() & next();
+        }
+    }
+}
@@ -14,7 +14,10 @@ package com.nucleuschess.board;
   along with this program.  If not, see <https://www.gnu.org/licenses/>.
 */
 
-import java.util.Arrays;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.NoSuchElementException;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -44,31 +47,75 @@ public enum Position {
     A7, B7, C7, D7, E7, F7, G7, H7,
     A8, B8, C8, D8, E8, F8, G8, H8;
 
+    // Lookup tables, the unmodifiable lists of ranks and files are shared with the callers of valuesOf
+    private static final Position[] VALUES = values();
+    private static final List<List<Position>> RANKS = new ArrayList<>(8);
+    private static final List<List<Position>> FILES = new ArrayList<>(8);
+
+    static {
+        for (int i = 0; i < 8; i++) {
+            final List<Position> rank = new ArrayList<>(8);
+            final List<Position> file = new ArrayList<>(8);
+
+            for (int j = 0; j < 8; j++) {
+                rank.add(VALUES[i * 8 + j]);
+                file.add(VALUES[j * 8 + i]);
+            }
+            RANKS.add(Collections.unmodifiableList(rank));
+            FILES.add(Collections.unmodifiableList(file));
+        }
+    }
+
     private final int fileNumber;
     private final char file;
     private final int rank;
 
 
     Position() {
-        this.fileNumber = PositionUtility.getFileNumber(name().toLowerCase().charAt(0));
-        this.file = name().toLowerCase().charAt(0);
-        this.rank = Integer.parseInt(String.valueOf(name().charAt(1)));
+        this.fileNumber = ordinal() % 8 + 1;
+        this.file = (char) ('a' + ordinal() % 8);
+        this.rank = ordinal() / 8 + 1;
+    }
+
+    /**
+     * Get the position with the given {@link #ordinal()}, which is also its bit in a bitboard
+     *
+     * @param ordinal Index of the square, from 0 (A1) to 63 (H8)
+     * @return The position
+     */
+    public static Position fromOrdinal(int ordinal) {
+        return VALUES[ordinal];
     }
 
     public static Position valueOf(char f, int r) {
-        return Arrays.stream(values()).filter(p -> p.getRank() == r && p.name().toLowerCase().charAt(0) == f).findFirst().orElseThrow();
+        return valueOf(f - 'a' + 1, r);
     }
 
     public static Position valueOf(int f, int r) {
-        return Arrays.stream(values()).filter(p -> p.getRank() == r && p.getFileNumber() == f).findFirst().orElseThrow();
+        if (f < 1 || f > 8 || r < 1 || r > 8) {
+            throw new NoSuchElementException("No value present");
+        }
+        return VALUES[(r - 1) * 8 + f - 1];
     }
 
-    public static Position[] valuesOf(int r) {
-        return Arrays.stream(values()).filter(v -> v.name().endsWith(String.valueOf(r))).toArray(Position[]::new);
+    /**
+     * Get all positions on a rank, ordered by file
+     *
+     * @param r Rank, from 1 to 8
+     * @return Unmodifiable list of the positions on the rank, or an empty list if the rank does not exist
+     */
+    public static List<Position> valuesOf(int r) {
+        return r < 1 || r > 8 ? Collections.emptyList() : RANKS.get(r - 1);
     }
 
-    public static Position[] valuesOf(char f) {
-        return Arrays.stream(values()).filter(v -> v.name().toLowerCase().startsWith(String.valueOf(f))).toArray(Position[]::new);
+    /**
+     * Get all positions on a file, ordered by rank
+     *
+     * @param f File, from 'a' to 'h'
+     * @return Unmodifiable list of the positions on the file, or an empty list if the file does not exist
+     */
+    public static List<Position> valuesOf(char f) {
+        return f < 'a' || f > 'h' ? Collections.emptyList() : FILES.get(f - 'a');
     }
 
     public Position getRelative(PositionFace face, int multiplier) {
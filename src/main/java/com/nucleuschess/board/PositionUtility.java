@@ -29,25 +29,23 @@ public final class PositionUtility {
     }
 
     public static char[] getFiles(int... ints) {
-        char[] files = new char[ints.length];
+        char[] result = new char[ints.length];
 
         int index = 0;
 
         for (int i : ints) {
-            files[index] = files[i - 1];
+            result[index] = getFile(i);
             index++;
         }
 
-        return files;
+        return result;
     }
 
     public static int getFileNumber(char c) {
-        for (int i = 0; i < files.length; i++) {
-            if (files[i] == c) {
-                return i + 1;
-            }
+        if (c < files[0] || c > files[files.length - 1]) {
+            throw new IllegalArgumentException("Cannot find number for file " + c);
         }
-        throw new IllegalArgumentException("Cannot find number for file " + c);
+        return c - files[0] + 1;
     }
 
 
@@ -0,0 +1,96 @@
+package com.nucleuschess.board;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Random keys for Zobrist hashing. The hash of a position is the XOR of the keys of every piece on its square, the
+ * castling rights, the en passant file and the side to move.
+ * <p>
+ * The keys are generated from a fixed seed, so hashes stay the same between runs and can be stored.
+ */
+public final class Zobrist {
+
+    private static final long GAMMA = 0x9E3779B97F4A7C15L;
+
+    private static final long[][] PIECES = new long[12][64];
+    private static final long[] CASTLING = new long[16];
+    private static final long[] EN_PASSANT = new long[8];
+    private static final long BLACK_TO_MOVE;
+
+    static {
+        long state = 0x4E75636C65757343L;
+
+        for (long[] keys : PIECES) {
+            for (int square = 0; square < keys.length; square++) {
+                keys[square] = mix(state += GAMMA);
+            }
+        }
+
+        // the key of a combination of rights is the XOR of the keys of the single rights
+        final long[] rights = new long[4];
+        for (int i = 0; i < rights.length; i++) {
+            rights[i] = mix(state += GAMMA);
+        }
+        for (int i = 0; i < CASTLING.length; i++) {
+            for (int bit = 0; bit < rights.length; bit++) {
+                if ((i & 1 << bit) != 0) {
+                    CASTLING[i] ^= rights[bit];
+                }
+            }
+        }
+
+        for (int file = 0; file < EN_PASSANT.length; file++) {
+            EN_PASSANT[file] = mix(state += GAMMA);
+        }
+        BLACK_TO_MOVE = mix(state + GAMMA);
+    }
+
+    private Zobrist() {
+    }
+
+    public static long piece(PieceType type, Color color, int square) {
+        return PIECES[type.ordinal() << 1 | color.ordinal()][square];
+    }
+
+    public static long castling(int rights) {
+        return CASTLING[rights];
+    }
+
+    /**
+     * Get the key of an en passant square
+     *
+     * @param square Square behind the pawn which moved two squares
+     * @return The key for the file of the square
+     */
+    public static long enPassant(int square) {
+        return EN_PASSANT[square & 7];
+    }
+
+    public static long side(Color color) {
+        return color == Color.BLACK ? BLACK_TO_MOVE : 0L;
+    }
+
+    /**
+     * Output function of SplitMix64, which turns consecutive states into well distributed numbers
+     */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
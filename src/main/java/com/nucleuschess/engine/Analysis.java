@@ -0,0 +1,209 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.board.Board;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Analysis of many positions at once, such as every position of the games in an archive. For every position the
+ * best lines are searched (multi-PV) with the same limits.
+ * <p>
+ * The games of a batch are divided over a pool of worker threads, where games which start with the same moves go to
+ * the same worker. A worker analyses the positions of its games one after another with one
+ * {@link TranspositionTable}, which it keeps between games, so a position reuses what was found in the positions
+ * before it and in the openings of the games before.
+ */
+public final class Analysis {
+
+    private final int threads;
+    private final int lines;
+    private final SearchLimits limits;
+    private final ExecutorService executor;
+    private final ThreadLocal<TranspositionTable> tables;
+
+    /**
+     * Create an analysis with a pool of worker threads
+     *
+     * @param threads   Number of worker threads
+     * @param lines     Number of lines of every position
+     * @param megabytes Size of the transposition table of every worker
+     * @param limits    Limits of the search of every line
+     */
+    public Analysis(int threads, int lines, int megabytes, SearchLimits limits) {
+        if (threads < 1 || lines < 1) {
+            throw new IllegalArgumentException("There has to be at least one thread and one line");
+        }
+
+        this.threads = threads;
+        this.lines = lines;
+        this.limits = limits;
+        this.tables = ThreadLocal.withInitial(() -> new TranspositionTable(megabytes));
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            final Thread thread = new Thread(runnable, "analysis");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Analyse the positions of a batch of games
+     *
+     * @param start Position the games start from, which is not changed
+     * @param games Packed moves of every game, see {@link com.nucleuschess.move.PackedMove}
+     * @return The lines of every position of every game
+     */
+    public Batch analyze(Board start, List<int[]> games) {
+        final long begin = System.nanoTime();
+
+        // games which start with the same moves are analysed one after the other by the same worker, whose table
+        // still holds the positions they share
+        final Integer[] order = new Integer[games.size()];
+        int positions = 0;
+        for (int game = 0; game < order.length; game++) {
+            order[game] = game;
+            positions += games.get(game).length + 1;
+        }
+        Arrays.sort(order, (first, second) -> compare(games.get(first), games.get(second)));
+
+        // the workers get about as many positions each
+        final SearchResult[][][] results = new SearchResult[games.size()][][];
+        final List<Future<?>> tasks = new ArrayList<>(threads);
+        int from = 0;
+        int assigned = 0;
+
+        for (int worker = 1; worker <= threads && from < order.length; worker++) {
+            int to = from;
+            while (to < order.length && (worker == threads || assigned < (long) positions * worker / threads)) {
+                assigned += games.get(order[to++]).length + 1;
+            }
+
+            final List<Integer> group = Arrays.asList(order).subList(from, to);
+            final List<Board> boards = new ArrayList<>(group.size());
+            for (int i = 0; i < group.size(); i++) {
+                boards.add(start.copy());
+            }
+
+            tasks.add(executor.submit(() -> {
+                for (int i = 0; i < group.size(); i++) {
+                    results[group.get(i)] = analyze(boards.get(i), games.get(group.get(i)));
+                }
+            }));
+            from = to;
+        }
+
+        for (Future<?> task : tasks) {
+            try {
+                task.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the analysis", e);
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Analysis failed", e.getCause());
+            }
+        }
+        return new Batch(results, positions, System.nanoTime() - begin);
+    }
+
+    /**
+     * Stop the worker threads for good
+     */
+    public void shutdown() {
+        executor.shutdownNow();
+    }
+
+    private SearchResult[][] analyze(Board board, int[] moves) {
+        final TranspositionTable table = tables.get();
+        final Search search = new Search(board, table);
+        final SearchResult[][] results = new SearchResult[moves.length + 1][];
+
+        // the table is kept between games, where the search of every position ages the entries of the ones before
+        for (int i = 0; i <= moves.length; i++) {
+            results[i] = search.search(limits, lines);
+
+            if (i < moves.length) {
+                board.makeMove(moves[i]);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Compare games by their moves, so games which start with the same moves are next to each other
+     */
+    private static int compare(int[] first, int[] second) {
+        for (int i = 0; i < Math.min(first.length, second.length); i++) {
+            if (first[i] != second[i]) {
+                return Integer.compare(first[i], second[i]);
+            }
+        }
+        return Integer.compare(first.length, second.length);
+    }
+
+    /**
+     * Results of a batch, with its throughput
+     */
+    public static final class Batch {
+
+        private final SearchResult[][][] results;
+        private final int positions;
+        private final long nanos;
+
+        private Batch(SearchResult[][][] results, int positions, long nanos) {
+            this.results = results;
+            this.positions = positions;
+            this.nanos = nanos;
+        }
+
+        /**
+         * Get the lines of a position
+         *
+         * @param game     Index of the game in the batch
+         * @param position Number of moves played in the game before the position
+         * @return Results by line, best first
+         */
+        public SearchResult[] getLines(int game, int position) {
+            return results[game][position].clone();
+        }
+
+        public int getGames() {
+            return results.length;
+        }
+
+        public int getPositions() {
+            return positions;
+        }
+
+        /**
+         * Get the time the batch took
+         *
+         * @return Time in milliseconds
+         */
+        public long getTime() {
+            return nanos / 1_000_000;
+        }
+
+        public double getPositionsPerSecond() {
+            return positions * 1e9 / Math.max(nanos, 1L);
+        }
+    }
+}
@@ -0,0 +1,64 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.board.PieceSquareTables;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Static evaluation of a position, in centipawns from the view of the side to move. The middlegame and endgame
+ * scores of the {@link PieceSquareTables} are kept up to date by the board, the {@link PawnStructure} comes from a
+ * {@link PawnHashTable}, and both are blended by the game phase.
+ */
+public final class Evaluator {
+
+    /**
+     * Value of every {@link PieceType} in centipawns, indexed by its ordinal, as used to order and prune captures
+     */
+    public static final int[] VALUES = {100, 320, 330, 500, 900, 0};
+
+    private final PawnHashTable pawnTable;
+
+    public Evaluator() {
+        this(new PawnHashTable(PawnHashTable.DEFAULT_SIZE));
+    }
+
+    public Evaluator(PawnHashTable pawnTable) {
+        this.pawnTable = pawnTable;
+    }
+
+    public int evaluate(Board board) {
+        final long whitePawns = board.getBitboard(PieceType.PAWN, Color.WHITE);
+        final long blackPawns = board.getBitboard(PieceType.PAWN, Color.BLACK);
+        final int pawns = pawnTable.get(board);
+
+        // the shelter depends on the king as well, so it is not cached with the pawns
+        final int shelter = PawnStructure.shelter(whitePawns, board.getKing(Color.WHITE).ordinal(), Color.WHITE)
+                - PawnStructure.shelter(blackPawns, board.getKing(Color.BLACK).ordinal(), Color.BLACK);
+
+        final int middlegame = board.getMiddlegameScore() + PawnStructure.middlegame(pawns) + shelter;
+        final int endgame = board.getEndgameScore() + PawnStructure.endgame(pawns);
+        final int phase = Math.min(board.getPhase(), PieceSquareTables.MAX_PHASE);
+        final int score = (middlegame * phase + endgame * (PieceSquareTables.MAX_PHASE - phase)) / PieceSquareTables.MAX_PHASE;
+
+        return board.getSideToMove() == Color.WHITE ? score : -score;
+    }
+
+    public PawnHashTable getPawnTable() {
+        return pawnTable;
+    }
+}
@@ -0,0 +1,236 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Bitboards;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Picks the moves of a position one at a time in the order they are most likely to cause a cutoff: the move from
+ * the transposition table, captures which don't lose material by MVV-LVA, the killer moves, the counter move,
+ * quiet moves by their history score and the captures which lose material last.
+ * <p>
+ * Moves are only generated when the stage that needs them is reached, so a cutoff by the hash move doesn't generate
+ * any moves, and a cutoff by a capture doesn't generate the quiet moves.
+ */
+final class MovePicker {
+
+    private static final int HASH_MOVE = 0;
+    private static final int GENERATE_CAPTURES = 1;
+    private static final int GOOD_CAPTURES = 2;
+    private static final int FIRST_KILLER = 3;
+    private static final int SECOND_KILLER = 4;
+    private static final int COUNTER_MOVE = 5;
+    private static final int GENERATE_QUIETS = 6;
+    private static final int QUIETS = 7;
+    private static final int BAD_CAPTURES = 8;
+    private static final int DONE = 9;
+
+    private final Board board;
+
+    private final MoveList moves;
+    private final int[] scores;
+    private final int[] badCaptures;
+    private final int[] exchange;
+    private int badSize;
+
+    private int stage;
+    private int index;
+
+    private int hashMove;
+    private int firstKiller;
+    private int secondKiller;
+    private int counterMove;
+    private int[] history;
+    private boolean capturesOnly;
+
+    MovePicker(Board board) {
+        this.board = board;
+        this.moves = new MoveList();
+        this.scores = new int[MoveList.CAPACITY];
+        this.badCaptures = new int[MoveList.CAPACITY];
+        this.exchange = new int[StaticExchange.BUFFER_SIZE];
+    }
+
+    /**
+     * Start picking the moves of the current position of the board
+     *
+     * @param hashMove     Move from the transposition table, or {@link PackedMove#NONE}
+     * @param firstKiller  Quiet move which caused the last cutoff at the same ply
+     * @param secondKiller Quiet move which caused the cutoff before it
+     * @param counterMove  Quiet move which caused a cutoff after the same move of the opponent
+     * @param history      History scores of the side to move, indexed by {@code from * 64 + to}
+     */
+    void init(int hashMove, int firstKiller, int secondKiller, int counterMove, int[] history) {
+        this.stage = HASH_MOVE;
+        this.hashMove = hashMove;
+        this.firstKiller = firstKiller;
+        this.secondKiller = secondKiller;
+        this.counterMove = counterMove;
+        this.history = history;
+        this.capturesOnly = false;
+    }
+
+    /**
+     * Start picking only the captures and promotions which don't lose material, as the quiescence search does
+     */
+    void initCaptures() {
+        init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, null);
+        this.stage = GENERATE_CAPTURES;
+        this.capturesOnly = true;
+    }
+
+    /**
+     * Get the next move
+     *
+     * @return The next legal move, or {@link PackedMove#NONE} when all moves have been picked
+     */
+    int next() {
+        while (true) {
+            switch (stage) {
+                case HASH_MOVE:
+                    stage = GENERATE_CAPTURES;
+                    if (board.isLegal(hashMove)) return hashMove;
+                    break;
+                case GENERATE_CAPTURES:
+                    generateCaptures();
+                    stage = GOOD_CAPTURES;
+                    break;
+                case GOOD_CAPTURES:
+                    while (index < moves.size()) {
+                        final int move = select();
+
+                        if (move == hashMove || !isTactical(move)) continue;
+
+                        // captures which lose material are tried after the quiet moves
+                        if (StaticExchange.evaluate(board, move, exchange) < 0) {
+                            badCaptures[badSize++] = move;
+                            continue;
+                        }
+                        return move;
+                    }
+                    stage = capturesOnly ? DONE : FIRST_KILLER;
+                    break;
+                case FIRST_KILLER:
+                    stage = SECOND_KILLER;
+                    if (isQuiet(firstKiller)) return firstKiller;
+                    break;
+                case SECOND_KILLER:
+                    stage = COUNTER_MOVE;
+                    if (secondKiller != firstKiller && isQuiet(secondKiller)) return secondKiller;
+                    break;
+                case COUNTER_MOVE:
+                    stage = GENERATE_QUIETS;
+                    if (counterMove != firstKiller && counterMove != secondKiller && isQuiet(counterMove)) return counterMove;
+                    break;
+                case GENERATE_QUIETS:
+                    generateQuiets();
+                    stage = QUIETS;
+                    break;
+                case QUIETS:
+                    while (index < moves.size()) {
+                        final int move = select();
+
+                        // pushes to the last rank were picked with the captures
+                        if (PackedMove.isPromotion(move)) continue;
+
+                        if (move != hashMove && move != firstKiller && move != secondKiller && move != counterMove) {
+                            return move;
+                        }
+                    }
+                    index = 0;
+                    stage = BAD_CAPTURES;
+                    break;
+                case BAD_CAPTURES:
+                    if (index < badSize) return badCaptures[index++];
+                    stage = DONE;
+                    break;
+                default:
+                    return PackedMove.NONE;
+            }
+        }
+    }
+
+    private void generateCaptures() {
+        final Color color = board.getSideToMove();
+        final long promotions = (color == Color.WHITE ? Bitboards.RANK_8 : Bitboards.RANK_1) & ~board.getOccupied();
+
+        moves.clear();
+        board.generateLegalMoves(moves, board.getOccupied(color.opposite()) | promotions);
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final PieceType captured = PackedMove.getCaptured(move);
+            final PieceType promotion = PackedMove.getPromotion(move);
+
+            // the most valuable victim first, taken by the least valuable attacker
+            scores[i] = captured == null ? 0 : Evaluator.VALUES[captured.ordinal()] * 10 - PackedMove.getPiece(move).ordinal();
+            if (promotion != null) {
+                scores[i] += Evaluator.VALUES[promotion.ordinal()];
+            }
+        }
+        index = 0;
+        badSize = 0;
+    }
+
+    private void generateQuiets() {
+        moves.clear();
+        board.generateLegalMoves(moves, ~board.getOccupied());
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            scores[i] = history[PackedMove.getFrom(move) << 6 | PackedMove.getTo(move)];
+        }
+        index = 0;
+    }
+
+    /**
+     * Swap the move with the highest score to the current index and return it. Picking one move at a time is
+     * cheaper than sorting, as most nodes are cut off after a few moves.
+     */
+    private int select() {
+        int best = index;
+        for (int i = index + 1; i < moves.size(); i++) {
+            if (scores[i] > scores[best]) {
+                best = i;
+            }
+        }
+
+        final int move = moves.get(best);
+        final int score = scores[best];
+        moves.set(best, moves.get(index));
+        scores[best] = scores[index];
+        moves.set(index, move);
+        scores[index] = score;
+
+        index++;
+        return move;
+    }
+
+    /**
+     * Check whether a remembered move is a legal quiet move which was not picked as the hash move
+     */
+    private boolean isQuiet(int move) {
+        return move != hashMove && !isTactical(move) && board.isLegal(move);
+    }
+
+    private static boolean isTactical(int move) {
+        return PackedMove.isCapture(move) || PackedMove.isPromotion(move);
+    }
+}
@@ -0,0 +1,192 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.board.Board;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Multi-threaded search (lazy SMP). Every thread searches the same position on its own copy of the board, and the
+ * threads only share the {@link TranspositionTable}. The helper threads skip different depths, so they fill the
+ * table with results the main thread needs later on.
+ * <p>
+ * The main thread runs on the thread which calls {@link #search(Board, SearchLimits)} and decides when the search
+ * ends; the helpers are stopped as soon as it returns.
+ */
+public final class ParallelSearch {
+
+    // depth skipping pattern of the helpers, by helper index
+    private static final int[] SKIP_SIZE = {1, 1, 2, 2, 2, 2, 3, 3, 3, 3, 3, 3, 4, 4, 4, 4, 4, 4, 4, 4};
+    private static final int[] SKIP_PHASE = {0, 1, 0, 1, 2, 3, 0, 1, 2, 3, 4, 5, 0, 1, 2, 3, 4, 5, 6, 7};
+
+    private final int threads;
+    private final TranspositionTable table;
+    private final PawnHashTable[] pawnTables;
+    private final ExecutorService executor;
+
+    private Consumer<SearchResult> listener;
+    private volatile Search[] workers;
+
+    public ParallelSearch(int threads, TranspositionTable table) {
+        this(threads, table, PawnHashTable.DEFAULT_SIZE);
+    }
+
+    /**
+     * Create a search with threads which share a transposition table, and keep a pawn hash table each
+     *
+     * @param pawnKilobytes Size of the pawn hash table of every thread in KB
+     */
+    public ParallelSearch(int threads, TranspositionTable table, int pawnKilobytes) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("There has to be at least one thread");
+        }
+
+        this.threads = threads;
+        this.table = table;
+        this.pawnTables = new PawnHashTable[threads];
+        for (int i = 0; i < threads; i++) {
+            pawnTables[i] = new PawnHashTable(pawnKilobytes);
+        }
+        this.workers = new Search[0];
+        this.executor = Executors.newFixedThreadPool(Math.max(threads - 1, 1), runnable -> {
+            final Thread thread = new Thread(runnable, "search-helper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * Set the listener which receives the result of every iteration completed by the main thread, with the nodes
+     * of all threads
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Search a position with all threads until the main thread reaches one of the limits
+     *
+     * @param board Position to search, which is copied for the helper threads
+     * @param limits Limits of the main thread
+     * @return The result of the deepest completed iteration of any thread, with the nodes of all threads
+     */
+    public SearchResult search(Board board, SearchLimits limits) {
+        final Search[] workers = new Search[threads];
+
+        for (int i = 0; i < threads; i++) {
+            workers[i] = new Search(i == 0 ? board : board.copy(), table, pawnTables[i]);
+
+            if (i > 0) {
+                workers[i].setHelper(SKIP_SIZE[(i - 1) % SKIP_SIZE.length], SKIP_PHASE[(i - 1) % SKIP_PHASE.length]);
+            }
+        }
+
+        if (listener != null) {
+            workers[0].setListener(result -> listener.accept(withNodes(result, getNodes(workers))));
+        }
+        this.workers = workers;
+
+        // the helpers search until they are stopped, so they only get the depth and node limits
+        final SearchLimits helperLimits = new SearchLimits().setDepth(limits.getDepth()).setNodes(limits.getNodes());
+        final List<Future<SearchResult>> helpers = new ArrayList<>();
+
+        for (int i = 1; i < threads; i++) {
+            final Search helper = workers[i];
+            helpers.add(executor.submit(() -> helper.search(helperLimits)));
+        }
+
+        SearchResult best = workers[0].search(limits);
+
+        for (Search worker : workers) {
+            worker.stop();
+        }
+
+        for (int i = 0; i < helpers.size(); i++) {
+            try {
+                final SearchResult result = helpers.get(i).get();
+
+                // a stopped first iteration of a helper is only a guess
+                if (result != null && workers[i + 1].isCompleted() && (best == null || result.getDepth() > best.getDepth())) {
+                    best = result;
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Helper thread failed", e.getCause());
+            }
+        }
+        return best == null ? null : withNodes(best, getNodes(workers));
+    }
+
+    /**
+     * Stop the search, which then returns the result of the last completed iteration
+     */
+    public void stop() {
+        for (Search worker : workers) {
+            worker.stop();
+        }
+    }
+
+    /**
+     * Get the nodes every thread searched in the current or last search, the main thread first
+     *
+     * @return Number of nodes by thread
+     */
+    public long[] getThreadNodes() {
+        final Search[] workers = this.workers;
+        final long[] nodes = new long[workers.length];
+
+        for (int i = 0; i < workers.length; i++) {
+            nodes[i] = workers[i].getNodes();
+        }
+        return nodes;
+    }
+
+    public int getThreads() {
+        return threads;
+    }
+
+    public TranspositionTable getTable() {
+        return table;
+    }
+
+    /**
+     * Stop the helper threads for good
+     */
+    public void shutdown() {
+        stop();
+        executor.shutdownNow();
+    }
+
+    private static long getNodes(Search[] workers) {
+        long nodes = 0L;
+
+        for (Search worker : workers) {
+            nodes += worker.getNodes();
+        }
+        return nodes;
+    }
+
+    private static SearchResult withNodes(SearchResult result, long nodes) {
+        return new SearchResult(result.getPv(), result.getScore(), result.getDepth(), nodes, result.getTime());
+    }
+}
@@ -0,0 +1,104 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Cache of {@link PawnStructure} scores, indexed by the hash of the pawns alone. The pawns change in few moves,
+ * so most lookups hit. A table belongs to a single search thread.
+ */
+public final class PawnHashTable {
+
+    /**
+     * Size of a table in KB, unless another size is given
+     */
+    public static final int DEFAULT_SIZE = 1024;
+
+    private static final int ENTRY_BYTES = 12;
+
+    private final long[] keys;
+    private final int[] scores;
+    private final int mask;
+
+    private long hits;
+    private long misses;
+
+    /**
+     * Create a table of at most the given size
+     *
+     * @param kilobytes Size of the table in KB, rounded down to a power of two entries
+     */
+    public PawnHashTable(int kilobytes) {
+        if (kilobytes < 1) {
+            throw new IllegalArgumentException("Size must be at least 1 KB");
+        }
+
+        final int entries = Integer.highestOneBit(kilobytes * 1024 / ENTRY_BYTES);
+
+        this.keys = new long[entries];
+        this.scores = new int[entries];
+        this.mask = entries - 1;
+
+        // the empty table would otherwise hold a score for the hash 0
+        this.keys[0] = 1L;
+    }
+
+    /**
+     * Get the pawn structure score of a position, evaluating and storing it if it's not in the table
+     *
+     * @return Packed score from the view of white, see {@link PawnStructure}
+     */
+    public int get(Board board) {
+        final long key = board.getPawnHash();
+        final int index = (int) key & mask;
+
+        if (keys[index] == key) {
+            hits++;
+            return scores[index];
+        }
+
+        misses++;
+
+        final int score = PawnStructure.evaluate(board.getBitboard(PieceType.PAWN, Color.WHITE), board.getBitboard(PieceType.PAWN, Color.BLACK));
+        keys[index] = key;
+        scores[index] = score;
+        return score;
+    }
+
+    public long getHits() {
+        return hits;
+    }
+
+    public long getMisses() {
+        return misses;
+    }
+
+    /**
+     * Get the share of lookups which were found in the table
+     *
+     * @return Hit rate between 0 and 1
+     */
+    public double getHitRate() {
+        final long total = hits + misses;
+        return total == 0 ? 0.0 : (double) hits / total;
+    }
+
+    public int size() {
+        return keys.length;
+    }
+}
@@ -0,0 +1,143 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Evaluation of the pawn structure: doubled, isolated and backward pawns, passed pawns and the pawn shelter in
+ * front of a king. Scores are packed in one {@code int} with {@link #pack(int, int)}, from the view of white.
+ */
+public final class PawnStructure {
+
+    private static final int DOUBLED_MIDDLEGAME = -10;
+    private static final int DOUBLED_ENDGAME = -20;
+    private static final int ISOLATED_MIDDLEGAME = -10;
+    private static final int ISOLATED_ENDGAME = -15;
+    private static final int BACKWARD_MIDDLEGAME = -8;
+    private static final int BACKWARD_ENDGAME = -10;
+    private static final int SHELTER_MIDDLEGAME = 12;
+
+    // bonus of a passed pawn by its rank, as seen by its own color
+    private static final int[] PASSED_MIDDLEGAME = {0, 5, 10, 15, 25, 40, 70, 0};
+    private static final int[] PASSED_ENDGAME = {0, 10, 20, 35, 60, 100, 150, 0};
+
+    private static final long[] FILES = new long[8];
+    private static final long[] ADJACENT_FILES = new long[8];
+
+    // squares in front of a pawn on its own and adjacent files, by color and square
+    private static final long[][] PASSED_SPANS = new long[2][64];
+    // squares next to and behind a pawn on the adjacent files, from where other pawns can support it
+    private static final long[][] SUPPORT_SPANS = new long[2][64];
+    // the two ranks in front of a king on its own and adjacent files
+    private static final long[][] SHELTER = new long[2][64];
+
+    static {
+        for (int file = 0; file < 8; file++) {
+            FILES[file] = Bitboards.FILE_A << file;
+        }
+        for (int file = 0; file < 8; file++) {
+            ADJACENT_FILES[file] = (file > 0 ? FILES[file - 1] : 0L) | (file < 7 ? FILES[file + 1] : 0L);
+        }
+
+        for (int square = 0; square < 64; square++) {
+            final int file = square & 7;
+            final int rank = square >>> 3;
+            final long span = FILES[file] | ADJACENT_FILES[file];
+
+            // ranks above and below the square
+            final long above = rank == 7 ? 0L : Bitboards.FULL << ((rank + 1) * 8);
+            final long below = rank == 0 ? 0L : Bitboards.FULL >>> ((8 - rank) * 8);
+            final long level = Bitboards.RANK_1 << (rank * 8);
+
+            PASSED_SPANS[Color.WHITE.ordinal()][square] = span & above;
+            PASSED_SPANS[Color.BLACK.ordinal()][square] = span & below;
+            SUPPORT_SPANS[Color.WHITE.ordinal()][square] = ADJACENT_FILES[file] & (below | level);
+            SUPPORT_SPANS[Color.BLACK.ordinal()][square] = ADJACENT_FILES[file] & (above | level);
+
+            final long front = Bitboards.RANK_1 << (Math.min(rank + 1, 7) * 8) | Bitboards.RANK_1 << (Math.min(rank + 2, 7) * 8);
+            final long back = Bitboards.RANK_1 << (Math.max(rank - 1, 0) * 8) | Bitboards.RANK_1 << (Math.max(rank - 2, 0) * 8);
+            SHELTER[Color.WHITE.ordinal()][square] = span & front & above;
+            SHELTER[Color.BLACK.ordinal()][square] = span & back & below;
+        }
+    }
+
+    private PawnStructure() {
+    }
+
+    /**
+     * Evaluate the pawns of both colors, which only depends on the pawns so the result can be cached by their hash
+     *
+     * @return Packed score from the view of white
+     */
+    public static int evaluate(long whitePawns, long blackPawns) {
+        return evaluate(whitePawns, blackPawns, Color.WHITE) - evaluate(blackPawns, whitePawns, Color.BLACK);
+    }
+
+    /**
+     * Evaluate the pawns in front of a king
+     *
+     * @return Middlegame score of the shelter from the view of the king's color
+     */
+    public static int shelter(long pawns, int king, Color color) {
+        return SHELTER_MIDDLEGAME * Long.bitCount(pawns & SHELTER[color.ordinal()][king]);
+    }
+
+    public static int pack(int middlegame, int endgame) {
+        return (middlegame << 16) + endgame;
+    }
+
+    public static int middlegame(int score) {
+        return (score + 0x8000) >> 16;
+    }
+
+    public static int endgame(int score) {
+        return (short) score;
+    }
+
+    private static int evaluate(long pawns, long enemies, Color color) {
+        int middlegame = 0;
+        int endgame = 0;
+
+        for (long b = pawns; b != 0; b &= b - 1) {
+            final int square = Bitboards.first(b);
+            final int file = square & 7;
+            final int stop = color == Color.WHITE ? square + 8 : square - 8;
+
+            if ((pawns & FILES[file] & PASSED_SPANS[color.ordinal()][square]) != 0) {
+                // only the rearmost pawn of a file counts as doubled, the front one can still be passed
+                middlegame += DOUBLED_MIDDLEGAME;
+                endgame += DOUBLED_ENDGAME;
+            } else if ((enemies & PASSED_SPANS[color.ordinal()][square]) == 0) {
+                final int rank = color == Color.WHITE ? square >>> 3 : 7 - (square >>> 3);
+                middlegame += PASSED_MIDDLEGAME[rank];
+                endgame += PASSED_ENDGAME[rank];
+            }
+
+            if ((pawns & ADJACENT_FILES[file]) == 0) {
+                middlegame += ISOLATED_MIDDLEGAME;
+                endgame += ISOLATED_ENDGAME;
+            } else if ((pawns & SUPPORT_SPANS[color.ordinal()][square]) == 0
+                    && stop >= 0 && stop < 64 && (AttackTables.pawn(color, stop) & enemies) != 0) {
+                // no pawn can come to its support, and it can't advance without being captured
+                middlegame += BACKWARD_MIDDLEGAME;
+                endgame += BACKWARD_ENDGAME;
+            }
+        }
+        return pack(middlegame, endgame);
+    }
+}
@@ -0,0 +1,578 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.piece.PieceType;
+
+import java.util.Arrays;
+import java.util.function.Consumer;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Alpha-beta search in negamax form with iterative deepening. Every iteration starts with an aspiration window
+ * around the score of the previous one; null move pruning and late move reductions cut down the tree, and a
+ * quiescence search resolves captures at the leaves, skipping those which lose material according to the
+ * {@link StaticExchange}. Searched positions are kept in a {@link TranspositionTable},
+ * which may be shared with other searches.
+ * <p>
+ * Moves are tried in the order of a {@link MovePicker}, which learns from the quiet moves causing cutoffs: the
+ * killer moves of every ply, the counter move to every move of the opponent and the history score of every move.
+ * <p>
+ * A search works on its own {@link Board}, which it changes while searching and restores when it is done. The
+ * {@link TimeManager} decides when it stops; other threads stop it through a flag which is polled every few
+ * thousand nodes.
+ */
+public final class Search {
+
+    public static final int MAX_PLY = 128;
+
+    public static final int INFINITE = 32_001;
+    public static final int MATE = 32_000;
+
+    /**
+     * Scores beyond this bound are mate scores, {@code MATE - ply} for a mate in {@code ply} plies
+     */
+    public static final int MATE_BOUND = MATE - MAX_PLY;
+
+    // nodes between two checks whether the search was stopped from another thread, minus one
+    private static final int POLL_INTERVAL = 2047;
+
+    private static final int ASPIRATION_WINDOW = 25;
+    private static final int DELTA_MARGIN = 200;
+
+    // history scores stay within this bound, so the scores of new cutoffs keep their weight
+    private static final int MAX_HISTORY = 16_384;
+
+    // late move reductions, indexed by depth and move number
+    private static final int[][] REDUCTIONS = new int[64][64];
+
+    static {
+        for (int depth = 1; depth < 64; depth++) {
+            for (int move = 1; move < 64; move++) {
+                REDUCTIONS[depth][move] = (int) (0.75 + Math.log(depth) * Math.log(move) / 2.25);
+            }
+        }
+    }
+
+    private final Board board;
+    private final Evaluator evaluator;
+    private final TranspositionTable table;
+
+    // buffers for every ply, so searching doesn't allocate
+    private final MovePicker[] pickers;
+    private final MoveList[] quiets;
+    private final int[] played;
+    private final int[][] pv;
+    private final int[] pvLength;
+
+    // move ordering, learned from the quiet moves which caused a cutoff
+    private final int[][] killers;
+    private final int[][] counterMoves;
+    private final int[][] history;
+
+    // root moves left out of the search, for the lines after the first of a multi-PV search
+    private final MoveList excluded;
+
+    private Consumer<SearchResult> listener;
+
+    // helpers of a parallel search skip some depths, so not every thread searches the same depth
+    private boolean helper;
+    private int skipSize;
+    private int skipPhase;
+
+    private long nodes;
+    private long maxNodes;
+    private long start;
+    private boolean completed;
+    private boolean stopped;
+    private volatile boolean stopRequested;
+
+    // number of finished searches, so a timer which fires while its search finishes doesn't stop the next one
+    private int generation;
+
+    public Search(Board board) {
+        this(board, new TranspositionTable(16));
+    }
+
+    public Search(Board board, TranspositionTable table) {
+        this(board, table, new PawnHashTable(PawnHashTable.DEFAULT_SIZE));
+    }
+
+    /**
+     * Create a search with tables which are kept between searches
+     *
+     * @param table     Transposition table, which may be shared with other threads
+     * @param pawnTable Pawn hash table, which belongs to this search alone
+     */
+    public Search(Board board, TranspositionTable table, PawnHashTable pawnTable) {
+        this.board = board;
+        this.evaluator = new Evaluator(pawnTable);
+        this.table = table;
+        this.pickers = new MovePicker[MAX_PLY + 1];
+        this.quiets = new MoveList[MAX_PLY + 1];
+        this.played = new int[MAX_PLY + 1];
+        this.pv = new int[MAX_PLY + 1][MAX_PLY + 1];
+        this.pvLength = new int[MAX_PLY + 1];
+        this.killers = new int[MAX_PLY + 1][2];
+        this.counterMoves = new int[12][64];
+        this.history = new int[2][64 * 64];
+        this.excluded = new MoveList();
+
+        for (int ply = 0; ply <= MAX_PLY; ply++) {
+            pickers[ply] = new MovePicker(board);
+            quiets[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * Set the listener which receives the result of every completed iteration
+     */
+    public void setListener(Consumer<SearchResult> listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Search the position of the board until one of the limits is reached
+     *
+     * @param limits Limits of the search
+     * @return The result of the last completed iteration
+     */
+    public SearchResult search(SearchLimits limits) {
+        this.nodes = 0;
+        this.maxNodes = limits.getNodes() > 0 ? limits.getNodes() : Long.MAX_VALUE;
+        this.start = System.nanoTime();
+        this.completed = false;
+        this.stopped = false;
+
+        // the lines after the first of a multi-PV search belong to the same search of the table
+        if (!helper && excluded.isEmpty()) {
+            table.newSearch();
+        }
+
+        // killers belong to the previous position, while history scores of earlier searches are still worth something
+        for (int[] moves : killers) {
+            Arrays.fill(moves, PackedMove.NONE);
+        }
+        for (int[] scores : history) {
+            for (int i = 0; i < scores.length; i++) {
+                scores[i] /= 2;
+            }
+        }
+
+        final TimeManager time = new TimeManager(limits);
+        SearchResult result = null;
+        int score = 0;
+
+        final int current = generation;
+        time.start(() -> stop(current));
+        try {
+            for (int depth = 1; depth <= limits.getDepth(); depth++) {
+                if (helper && ((depth + skipPhase) / skipSize) % 2 != 0) continue;
+
+                score = aspiration(depth, score);
+
+                // an iteration which was stopped is incomplete, only the first one is better than nothing
+                if (stopped && result != null) break;
+
+                result = new SearchResult(Arrays.copyOf(pv[0], pvLength[0]), score, depth, nodes, (System.nanoTime() - start) / 1_000_000);
+                completed = !stopped;
+
+                if (listener != null) {
+                    listener.accept(result);
+                }
+                if (stopped || pvLength[0] == 0 || time.shouldStop(result)) break;
+            }
+        } finally {
+            time.finish();
+
+            // a stop which arrived before the search started stops it, while one of a finished search is done
+            synchronized (this) {
+                generation++;
+                stopRequested = false;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Search the best lines of the position (multi-PV): every line is searched like a single one, leaving out the
+     * first moves of the lines before it
+     *
+     * @param limits Limits of the search of every line
+     * @param lines  Number of lines
+     * @return Results by line, best first, with fewer lines if the position has fewer legal moves
+     */
+    public SearchResult[] search(SearchLimits limits, int lines) {
+        final SearchResult[] results = new SearchResult[lines];
+        int count = 0;
+
+        try {
+            while (count < lines) {
+                final SearchResult result = search(limits);
+
+                if (result == null || result.getBestMove() == PackedMove.NONE) break;
+
+                results[count++] = result;
+                excluded.add(result.getBestMove());
+
+                if (stopped) break;
+            }
+        } finally {
+            excluded.clear();
+        }
+        return Arrays.copyOf(results, count);
+    }
+
+    /**
+     * Stop the search, which then returns the result of the last completed iteration. A search which is stopped
+     * before it completes an iteration returns as soon as the first iteration finished a root move.
+     */
+    public void stop() {
+        stopRequested = true;
+    }
+
+    /**
+     * Stop the search from its timer, unless the search the timer belongs to has already finished
+     */
+    private synchronized void stop(int generation) {
+        if (this.generation == generation) {
+            stopRequested = true;
+        }
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Check whether the result of the current or last search comes from a completed iteration, and not from a first
+     * iteration which was stopped
+     */
+    boolean isCompleted() {
+        return completed;
+    }
+
+    public Evaluator getEvaluator() {
+        return evaluator;
+    }
+
+    /**
+     * Make this search a helper of a {@link ParallelSearch}, which skips depths in a pattern of its own
+     *
+     * @param size  Number of consecutive depths which are searched or skipped
+     * @param phase Offset of the pattern
+     */
+    void setHelper(int size, int phase) {
+        this.helper = true;
+        this.skipSize = size;
+        this.skipPhase = phase;
+    }
+
+    private int aspiration(int depth, int previous) {
+        int delta = ASPIRATION_WINDOW;
+        int alpha = -INFINITE;
+        int beta = INFINITE;
+
+        // the first iterations are too unstable for a window
+        if (depth >= 4) {
+            alpha = Math.max(previous - delta, -INFINITE);
+            beta = Math.min(previous + delta, INFINITE);
+        }
+
+        while (true) {
+            final int score = negamax(depth, 0, alpha, beta, false);
+
+            if (stopped) return score;
+
+            if (score <= alpha) {
+                alpha = Math.max(score - delta, -INFINITE);
+            } else if (score >= beta) {
+                beta = Math.min(score + delta, INFINITE);
+            } else {
+                return score;
+            }
+            delta *= 2;
+        }
+    }
+
+    private int negamax(int depth, int ply, int alpha, int beta, boolean nullAllowed) {
+        pvLength[ply] = 0;
+
+        final boolean pvNode = beta - alpha > 1;
+
+        if (ply > 0) {
+            if (board.getHalfMoveClock() >= 100 || board.isRepetition()) return 0;
+
+            // no line can be better than mating right away
+            alpha = Math.max(alpha, -MATE + ply);
+            beta = Math.min(beta, MATE - ply - 1);
+            if (alpha >= beta) return alpha;
+        }
+
+        final Color color = board.getSideToMove();
+        final boolean inCheck = board.isInCheck(color);
+
+        if (inCheck) depth++;
+        if (depth <= 0) return quiescence(ply, alpha, beta);
+        if (ply >= MAX_PLY) return evaluator.evaluate(board);
+
+        if (count()) return 0;
+
+        final long hash = board.hash();
+        final long entry = table.probe(hash);
+        final int hashMove = TranspositionTable.getMove(entry);
+
+        if (entry != 0 && !pvNode && TranspositionTable.getDepth(entry) >= depth) {
+            final int score = fromTable(TranspositionTable.getScore(entry), ply);
+            final int bound = TranspositionTable.getBound(entry);
+
+            if (bound == TranspositionTable.EXACT
+                    || (bound == TranspositionTable.LOWER && score >= beta)
+                    || (bound == TranspositionTable.UPPER && score <= alpha)) {
+                return score;
+            }
+        }
+
+        // if passing still fails high, a real move will too, unless the side to move is in zugzwang
+        if (!pvNode && !inCheck && nullAllowed && depth >= 3 && hasPieces(color) && evaluator.evaluate(board) >= beta) {
+            played[ply] = PackedMove.NONE;
+            board.makeNullMove();
+            final int score = -negamax(depth - 3 - depth / 4, ply + 1, -beta, -beta + 1, false);
+            board.unmakeMove();
+
+            if (stopped) return 0;
+            if (score >= beta) return score >= MATE_BOUND ? beta : score;
+        }
+
+        final int previous = ply > 0 ? played[ply - 1] : PackedMove.NONE;
+        final MovePicker picker = pickers[ply];
+        picker.init(hashMove, killers[ply][0], killers[ply][1], getCounterMove(previous), history[color.ordinal()]);
+
+        final MoveList searchedQuiets = quiets[ply];
+        searchedQuiets.clear();
+
+        final int originalAlpha = alpha;
+        int best = -INFINITE;
+        int bestMove = PackedMove.NONE;
+        int i = 0;
+
+        // i counts the moves which were searched, so excluded root moves don't count towards the reductions
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (ply == 0 && excluded.contains(move)) continue;
+
+            final boolean quiet = !PackedMove.isCapture(move) && !PackedMove.isPromotion(move);
+
+            played[ply] = move;
+            board.makeMove(move);
+
+            int score;
+            if (i == 0) {
+                score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+            } else {
+                // later moves are searched with a null window, quiet ones at a reduced depth
+                int reduction = 0;
+                if (depth >= 3 && i >= 3 && quiet && !inCheck && !board.isInCheck(color.opposite())) {
+                    reduction = REDUCTIONS[Math.min(depth, 63)][Math.min(i, 63)] - (pvNode ? 1 : 0);
+                    reduction = Math.max(0, Math.min(reduction, depth - 2));
+                }
+
+                score = -negamax(depth - 1 - reduction, ply + 1, -alpha - 1, -alpha, true);
+
+                if (score > alpha && reduction > 0) {
+                    score = -negamax(depth - 1, ply + 1, -alpha - 1, -alpha, true);
+                }
+                if (score > alpha && score < beta) {
+                    score = -negamax(depth - 1, ply + 1, -beta, -alpha, true);
+                }
+            }
+
+            board.unmakeMove();
+            i++;
+
+            // a stopped first iteration returns the best of the root moves it finished
+            if (stopped) return ply == 0 ? best : 0;
+
+            if (score > best) {
+                best = score;
+
+                if (score > alpha) {
+                    alpha = score;
+                    bestMove = move;
+                    updatePv(ply, move);
+
+                    if (alpha >= beta) {
+                        if (quiet) {
+                            updateOrdering(ply, depth, move, previous, color);
+                        }
+                        break;
+                    }
+                }
+            }
+            if (quiet) {
+                searchedQuiets.add(move);
+            }
+        }
+
+        // no legal move
+        if (best == -INFINITE) {
+            return inCheck ? -MATE + ply : 0;
+        }
+
+        final int bound = best >= beta ? TranspositionTable.LOWER : best > originalAlpha ? TranspositionTable.EXACT : TranspositionTable.UPPER;
+        // the best move of a root without some of its moves is not the best move of the position
+        if (ply > 0 || excluded.isEmpty()) {
+            table.store(hash, bestMove, toTable(best, ply), depth, bound);
+        }
+        return best;
+    }
+
+    private int quiescence(int ply, int alpha, int beta) {
+        pvLength[ply] = 0;
+
+        if (count()) return 0;
+        if (ply >= MAX_PLY) return evaluator.evaluate(board);
+
+        final Color color = board.getSideToMove();
+        final boolean inCheck = board.isInCheck(color);
+        int best = -INFINITE;
+
+        // the side to move can usually do at least as well as the static evaluation, unless it's in check
+        if (!inCheck) {
+            best = evaluator.evaluate(board);
+
+            if (best >= beta) return best;
+            alpha = Math.max(alpha, best);
+        }
+
+        // captures and promotions which don't lose material, or every move out of check
+        final MovePicker picker = pickers[ply];
+        if (inCheck) {
+            picker.init(PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, PackedMove.NONE, history[color.ordinal()]);
+        } else {
+            picker.initCaptures();
+        }
+
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            if (!inCheck) {
+                final PieceType captured = PackedMove.getCaptured(move);
+                final PieceType promotion = PackedMove.getPromotion(move);
+
+                if (captured == null && promotion != PieceType.QUEEN) continue;
+
+                // even winning the captured piece for free would not raise alpha
+                final int gain = (captured == null ? 0 : Evaluator.VALUES[captured.ordinal()])
+                        + (promotion == null ? 0 : Evaluator.VALUES[promotion.ordinal()]);
+                if (best + gain + DELTA_MARGIN <= alpha) continue;
+            }
+
+            board.makeMove(move);
+            final int score = -quiescence(ply + 1, -beta, -alpha);
+            board.unmakeMove();
+
+            if (stopped) return 0;
+
+            if (score > best) {
+                best = score;
+
+                if (score > alpha) {
+                    alpha = score;
+                    updatePv(ply, move);
+
+                    if (alpha >= beta) break;
+                }
+            }
+        }
+        return best == -INFINITE ? -MATE + ply : best;
+    }
+
+    /**
+     * Count a node and check the limits of the search. The limits only apply once there is a move to return, from a
+     * completed iteration or a root move the first iteration finished.
+     *
+     * @return Whether the search has to stop
+     */
+    private boolean count() {
+        if (stopped) return true;
+
+        if (++nodes >= maxNodes || ((nodes & POLL_INTERVAL) == 0 && stopRequested)) {
+            stopped = completed || pvLength[0] > 0;
+        }
+        return stopped;
+    }
+
+    private boolean hasPieces(Color color) {
+        return (board.getOccupied(color) & ~board.getBitboard(PieceType.PAWN, color) & ~board.getBitboard(PieceType.KING, color)) != 0;
+    }
+
+    /**
+     * Remember a quiet move which caused a cutoff: as a killer move of the ply, as the counter move to the previous
+     * move, and in the history, where the quiet moves searched before it lose as much
+     */
+    private void updateOrdering(int ply, int depth, int move, int previous, Color color) {
+        if (killers[ply][0] != move) {
+            killers[ply][1] = killers[ply][0];
+            killers[ply][0] = move;
+        }
+        if (previous != PackedMove.NONE) {
+            counterMoves[getPieceIndex(previous)][PackedMove.getTo(previous)] = move;
+        }
+
+        final int[] scores = history[color.ordinal()];
+        final int bonus = Math.min(depth * depth, 400);
+        final MoveList searched = quiets[ply];
+
+        addHistory(scores, move, bonus);
+        for (int i = 0; i < searched.size(); i++) {
+            addHistory(scores, searched.get(i), -bonus);
+        }
+    }
+
+    private int getCounterMove(int previous) {
+        return previous == PackedMove.NONE ? PackedMove.NONE : counterMoves[getPieceIndex(previous)][PackedMove.getTo(previous)];
+    }
+
+    /**
+     * Add to a history score, which is pulled towards zero harder the closer it is to the bound
+     */
+    private static void addHistory(int[] scores, int move, int bonus) {
+        final int index = PackedMove.getFrom(move) << 6 | PackedMove.getTo(move);
+        scores[index] += bonus - scores[index] * Math.abs(bonus) / MAX_HISTORY;
+    }
+
+    private static int getPieceIndex(int move) {
+        return PackedMove.getPiece(move).ordinal() << 1 | PackedMove.getColor(move).ordinal();
+    }
+
+    /**
+     * Mate scores are stored relative to the position instead of the root, as the position can be reached at
+     * another ply
+     */
+    private static int toTable(int score, int ply) {
+        return score >= MATE_BOUND ? score + ply : score <= -MATE_BOUND ? score - ply : score;
+    }
+
+    private static int fromTable(int score, int ply) {
+        return score >= MATE_BOUND ? score - ply : score <= -MATE_BOUND ? score + ply : score;
+    }
+
+    private void updatePv(int ply, int move) {
+        pv[ply][0] = move;
+        System.arraycopy(pv[ply + 1], 0, pv[ply], 1, pvLength[ply + 1]);
+        pvLength[ply] = pvLength[ply + 1] + 1;
+    }
+}
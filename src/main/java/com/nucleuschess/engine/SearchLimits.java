@@ -0,0 +1,110 @@
+package com.nucleuschess.engine;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Limits of a search. The search stops at whichever limit it reaches first; a node or time limit of 0 means there
+ * is no such limit.
+ * <p>
+ * Instead of a fixed time, the time left on the clock can be given, which a {@link TimeManager} divides over the
+ * moves still to play.
+ */
+public final class SearchLimits {
+
+    private int depth = Search.MAX_PLY - 1;
+    private long nodes;
+    private long time;
+    private long timeLeft;
+    private long increment;
+    private int movesToGo;
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public SearchLimits setDepth(int depth) {
+        if (depth < 1 || depth >= Search.MAX_PLY) {
+            throw new IllegalArgumentException("Depth must be between 1 and " + (Search.MAX_PLY - 1));
+        }
+
+        this.depth = depth;
+        return this;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    public SearchLimits setNodes(long nodes) {
+        this.nodes = nodes;
+        return this;
+    }
+
+    /**
+     * Get the time the search may take
+     *
+     * @return Time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public SearchLimits setTime(long time) {
+        this.time = time;
+        return this;
+    }
+
+    /**
+     * Get the time left on the clock of the side to move
+     *
+     * @return Time in milliseconds, or 0 if the search isn't played with a clock
+     */
+    public long getTimeLeft() {
+        return timeLeft;
+    }
+
+    public SearchLimits setTimeLeft(long timeLeft) {
+        this.timeLeft = timeLeft;
+        return this;
+    }
+
+    /**
+     * Get the time added to the clock after every move
+     *
+     * @return Time in milliseconds
+     */
+    public long getIncrement() {
+        return increment;
+    }
+
+    public SearchLimits setIncrement(long increment) {
+        this.increment = increment;
+        return this;
+    }
+
+    /**
+     * Get the number of moves until the next time control
+     *
+     * @return Number of moves, or 0 if the rest of the game has to be played in the time left
+     */
+    public int getMovesToGo() {
+        return movesToGo;
+    }
+
+    public SearchLimits setMovesToGo(int movesToGo) {
+        this.movesToGo = movesToGo;
+        return this;
+    }
+}
@@ -0,0 +1,89 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.move.PackedMove;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Result of a completed iteration of a search
+ */
+public final class SearchResult {
+
+    private final int[] pv;
+    private final int score;
+    private final int depth;
+    private final long nodes;
+    private final long time;
+
+    public SearchResult(int[] pv, int score, int depth, long nodes, long time) {
+        this.pv = pv;
+        this.score = score;
+        this.depth = depth;
+        this.nodes = nodes;
+        this.time = time;
+    }
+
+    /**
+     * Get the best move found
+     *
+     * @return Packed move, or {@link PackedMove#NONE} if the position has no legal moves
+     */
+    public int getBestMove() {
+        return pv.length == 0 ? PackedMove.NONE : pv[0];
+    }
+
+    /**
+     * Get the principal variation, the line both sides are expected to play
+     *
+     * @return Packed moves starting with the best move
+     */
+    public int[] getPv() {
+        return pv.clone();
+    }
+
+    /**
+     * Get the score of the best move
+     *
+     * @return Score in centipawns from the view of the side to move, see {@link Search#MATE} for mate scores
+     */
+    public int getScore() {
+        return score;
+    }
+
+    public int getDepth() {
+        return depth;
+    }
+
+    public long getNodes() {
+        return nodes;
+    }
+
+    /**
+     * Get the time the search took until this result
+     *
+     * @return Time in milliseconds
+     */
+    public long getTime() {
+        return time;
+    }
+
+    public long getNps() {
+        return time == 0 ? nodes * 1000 : nodes * 1000 / time;
+    }
+
+    public boolean isMate() {
+        return Math.abs(score) >= Search.MATE_BOUND;
+    }
+}
@@ -0,0 +1,121 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Bitboards;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Static exchange evaluation (SEE): the material a move wins or loses when both sides keep capturing on its target
+ * square with their least valuable attacker, and may stop whenever capturing on would lose material. Attackers are
+ * looked up again after every capture, so pieces behind a capturing slider join the exchange.
+ */
+public final class StaticExchange {
+
+    // the king can only capture last, when nothing can take it back
+    private static final int[] VALUES = {100, 320, 330, 500, 900, 20_000};
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    /**
+     * Size of the buffer of {@link #evaluate(Board, int, int[])}: no square has more attackers than that
+     */
+    public static final int BUFFER_SIZE = 32;
+
+    private StaticExchange() {
+    }
+
+    /**
+     * Evaluate the exchange a move starts
+     *
+     * @param board Position before the move
+     * @param move  Packed move, see {@link PackedMove}
+     * @return Material won by the side making the move in centipawns, negative if it loses material
+     */
+    public static int evaluate(Board board, int move) {
+        return evaluate(board, move, new int[BUFFER_SIZE]);
+    }
+
+    /**
+     * Evaluate the exchange a move starts without allocating, as the search does for every capture
+     *
+     * @param gain Buffer of {@link #BUFFER_SIZE} which is overwritten, and can be reused
+     * @see #evaluate(Board, int)
+     */
+    public static int evaluate(Board board, int move, int[] gain) {
+        if (PackedMove.isCastling(move)) return 0;
+
+        final int from = PackedMove.getFrom(move);
+        final int to = PackedMove.getTo(move);
+        final PieceType captured = PackedMove.getCaptured(move);
+        final PieceType promotion = PackedMove.getPromotion(move);
+
+        long occupied = board.getOccupied() & ~(1L << from);
+        if (PackedMove.isEnPassant(move)) {
+            occupied &= ~(1L << ((from & ~7) | (to & 7)));
+        }
+
+        gain[0] = captured == null ? 0 : VALUES[captured.ordinal()];
+        int onSquare = VALUES[PackedMove.getPiece(move).ordinal()];
+
+        if (promotion != null) {
+            gain[0] += VALUES[promotion.ordinal()] - VALUES[PieceType.PAWN.ordinal()];
+            onSquare = VALUES[promotion.ordinal()];
+        }
+
+        Color side = PackedMove.getColor(move).opposite();
+        int depth = 0;
+
+        while (depth < gain.length - 1) {
+            final long attackers = board.getAttackers(to, side, occupied) & occupied;
+            if (attackers == 0) break;
+
+            final PieceType attacker = getLeastValuable(board, attackers, side);
+
+            // the gain if the capture would not be answered
+            depth++;
+            gain[depth] = onSquare - gain[depth - 1];
+
+            occupied &= ~Long.lowestOneBit(attackers & board.getBitboard(attacker, side));
+            onSquare = VALUES[attacker.ordinal()];
+            side = side.opposite();
+        }
+
+        // every side can stop capturing when going on would lose more
+        for (; depth > 0; depth--) {
+            gain[depth - 1] = -Math.max(-gain[depth - 1], gain[depth]);
+        }
+        return gain[0];
+    }
+
+    /**
+     * Check whether a move doesn't lose material in the exchange it starts
+     */
+    public static boolean isGood(Board board, int move) {
+        return evaluate(board, move) >= 0;
+    }
+
+    private static PieceType getLeastValuable(Board board, long attackers, Color side) {
+        for (PieceType type : TYPES) {
+            if ((attackers & board.getBitboard(type, side)) != 0) {
+                return type;
+            }
+        }
+        throw new IllegalStateException("No attacker in " + Bitboards.count(attackers) + " squares");
+    }
+}
@@ -0,0 +1,140 @@
+package com.nucleuschess.engine;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Decides how long a search may take. The time left on the clock is turned into a soft limit, the time a move
+ * should usually take, and a hard limit, which is never exceeded.
+ * <p>
+ * The soft limit is checked after every iteration and scaled by how the search is going: it's extended when the
+ * best move keeps changing or the score drops, and cut when the best move stays the same. The hard limit stops the
+ * search in the middle of an iteration through a timer, so the search only has to poll a flag instead of reading
+ * the clock.
+ */
+public final class TimeManager {
+
+    /**
+     * Time kept on the clock for the delay between the engine and the GUI, in milliseconds
+     */
+    public static final long MOVE_OVERHEAD = 50;
+
+    // moves the time left is divided over when the number of moves to the next time control isn't known
+    private static final int MOVES_TO_GO = 30;
+
+    // soft limit scale by the number of iterations the best move stayed the same
+    private static final double[] STABILITY = {2.0, 1.4, 1.1, 0.9, 0.75};
+
+    private static final ScheduledExecutorService TIMER = Executors.newSingleThreadScheduledExecutor(runnable -> {
+        final Thread thread = new Thread(runnable, "search-timer");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private final long softLimit;
+    private final long hardLimit;
+
+    private int stability;
+    private int previousMove;
+    private int previousScore;
+    private ScheduledFuture<?> timeout;
+
+    public TimeManager(SearchLimits limits) {
+        if (limits.getTime() > 0) {
+            // a fixed time per move is used up completely
+            this.softLimit = 0L;
+            this.hardLimit = limits.getTime();
+        } else if (limits.getTimeLeft() > 0) {
+            final long available = Math.max(limits.getTimeLeft() - MOVE_OVERHEAD, 1L);
+            final int moves = limits.getMovesToGo() > 0 ? Math.min(limits.getMovesToGo(), MOVES_TO_GO) : MOVES_TO_GO;
+
+            this.softLimit = Math.max(Math.min(available / moves + limits.getIncrement() * 3 / 4, available * 3 / 4), 1L);
+            this.hardLimit = Math.max(Math.min(softLimit * 4, available * 3 / 4), softLimit);
+        } else {
+            this.softLimit = 0L;
+            this.hardLimit = 0L;
+        }
+        this.previousMove = -1;
+    }
+
+    /**
+     * Start the timer of the hard limit
+     *
+     * @param stop Action which stops the search, called from the timer thread
+     */
+    public void start(Runnable stop) {
+        if (hardLimit > 0) {
+            timeout = TIMER.schedule(stop, hardLimit, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Cancel the timer of the hard limit when the search is done
+     */
+    public void finish() {
+        if (timeout != null) {
+            timeout.cancel(false);
+            timeout = null;
+        }
+    }
+
+    /**
+     * Decide after an iteration whether the search should stop
+     *
+     * @param result Result of the completed iteration
+     * @return Whether the next iteration should not be started
+     */
+    public boolean shouldStop(SearchResult result) {
+        if (softLimit == 0) return false;
+
+        stability = result.getBestMove() == previousMove ? Math.min(stability + 1, STABILITY.length - 1) : 0;
+        double scale = STABILITY[stability];
+
+        // a dropping score means the search found a problem, which needs time to solve
+        if (previousMove != -1 && result.getScore() < previousScore) {
+            scale *= 1.0 + Math.min(previousScore - result.getScore(), 100) / 100.0;
+        }
+
+        previousMove = result.getBestMove();
+        previousScore = result.getScore();
+
+        // an iteration takes about as long as all before it, so the next one is only started if it's likely to end
+        // within the limit
+        final long target = Math.min((long) (softLimit * scale), hardLimit);
+        return result.getTime() >= target / 2;
+    }
+
+    /**
+     * Get the time a search should usually take
+     *
+     * @return Time in milliseconds, or 0 if the search only stops at the hard limit
+     */
+    public long getSoftLimit() {
+        return softLimit;
+    }
+
+    /**
+     * Get the time after which a search is stopped
+     *
+     * @return Time in milliseconds, or 0 if there is no time limit
+     */
+    public long getHardLimit() {
+        return hardLimit;
+    }
+}
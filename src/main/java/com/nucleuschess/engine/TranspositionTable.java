@@ -0,0 +1,171 @@
+package com.nucleuschess.engine;
+
+import java.util.Arrays;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Fixed-size hash table of searched positions, shared by all search threads without locking.
+ * <p>
+ * Entries are stored as two longs in a flat {@code long[]}: the position hash XOR the data, and the data itself.
+ * When another thread writes an entry halfway through a read, the XOR of both longs no longer matches the hash, so
+ * torn entries are seen as misses instead of giving wrong results. The data of an entry is laid out as follows:
+ * <pre>
+ *  0 - 24  packed move, see {@link com.nucleuschess.move.PackedMove}
+ * 25 - 40  score, as a signed 16-bit number
+ * 41 - 48  depth
+ * 49 - 50  bound: {@link #LOWER}, {@link #UPPER} or {@link #EXACT}
+ * 51 - 58  age, the search the entry was written in
+ * </pre>
+ * Every hash maps to a bucket of two entries. A new entry replaces the entry of the same position, or else the
+ * entry with the lowest depth, where entries from earlier searches count as less deep.
+ */
+public final class TranspositionTable {
+
+    public static final int LOWER = 1;
+    public static final int UPPER = 2;
+    public static final int EXACT = 3;
+
+    private static final int ENTRY_BYTES = 16;
+    private static final int BUCKET_LONGS = 4;
+
+    private long[] table;
+    private int mask;
+    private int age;
+
+    /**
+     * Create a table of at most the given size
+     *
+     * @param megabytes Size of the table in MB, rounded down to a power of two
+     */
+    public TranspositionTable(int megabytes) {
+        resize(megabytes);
+    }
+
+    /**
+     * Change the size of the table, which clears it
+     *
+     * @param megabytes Size of the table in MB, rounded down to a power of two
+     */
+    public void resize(int megabytes) {
+        if (megabytes < 1 || megabytes > 8192) {
+            throw new IllegalArgumentException("Size must be between 1 and 8192 MB");
+        }
+
+        final long buckets = Long.highestOneBit(megabytes * 1024L * 1024L / (ENTRY_BYTES * 2));
+
+        this.table = new long[(int) (buckets * BUCKET_LONGS)];
+        this.mask = (int) buckets - 1;
+        this.age = 0;
+    }
+
+    public void clear() {
+        Arrays.fill(table, 0L);
+        age = 0;
+    }
+
+    /**
+     * Start a new search, so the entries of earlier searches are replaced first
+     */
+    public void newSearch() {
+        age = (age + 1) & 0xFF;
+    }
+
+    /**
+     * Look up a position
+     *
+     * @param hash Hash of the position
+     * @return Data of the entry, or 0 if the position is not in the table
+     */
+    public long probe(long hash) {
+        final int index = ((int) hash & mask) * BUCKET_LONGS;
+
+        for (int i = index; i < index + BUCKET_LONGS; i += 2) {
+            final long data = table[i + 1];
+
+            if ((table[i] ^ data) == hash && data != 0) {
+                return data;
+            }
+        }
+        return 0L;
+    }
+
+    public void store(long hash, int move, int score, int depth, int bound) {
+        final int index = ((int) hash & mask) * BUCKET_LONGS;
+        int slot = index;
+        int lowest = Integer.MAX_VALUE;
+
+        for (int i = index; i < index + BUCKET_LONGS; i += 2) {
+            final long data = table[i + 1];
+
+            if ((table[i] ^ data) == hash) {
+                // keep the best move of the position when this search didn't find one
+                if (move == 0) move = getMove(data);
+                slot = i;
+                break;
+            }
+
+            final int value = data == 0 ? Integer.MIN_VALUE : getDepth(data) - 8 * ((age - getAge(data)) & 0xFF);
+            if (value < lowest) {
+                lowest = value;
+                slot = i;
+            }
+        }
+
+        final long data = (move & 0x1FFFFFFL)
+                | (score & 0xFFFFL) << 25
+                | (long) Math.max(0, Math.min(depth, 0xFF)) << 41
+                | (long) bound << 49
+                | (long) age << 51;
+
+        table[slot] = hash ^ data;
+        table[slot + 1] = data;
+    }
+
+    /**
+     * Estimate how full the table is from a sample of its buckets
+     *
+     * @return Permille of the sampled entries written in the current search
+     */
+    public int getHashfull() {
+        final int sample = Math.min(table.length, 1000 * 2);
+        int used = 0;
+
+        for (int i = 1; i < sample; i += 2) {
+            if (table[i] != 0 && getAge(table[i]) == age) used++;
+        }
+        return used * 1000 / (sample / 2);
+    }
+
+    public static int getMove(long data) {
+        return (int) (data & 0x1FFFFFF);
+    }
+
+    public static int getScore(long data) {
+        return (short) (data >>> 25);
+    }
+
+    public static int getDepth(long data) {
+        return (int) (data >>> 41 & 0xFF);
+    }
+
+    public static int getBound(long data) {
+        return (int) (data >>> 49 & 0x3);
+    }
+
+    private static int getAge(long data) {
+        return (int) (data >>> 51 & 0xFF);
+    }
+}
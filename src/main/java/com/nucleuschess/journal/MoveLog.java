@@ -0,0 +1,572 @@
+package com.nucleuschess.journal;
+
+import com.nucleuschess.board.Board;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Write-ahead log of the moves of live games, so games survive a restart of the server. A move is only acknowledged
+ * once it's on disk, and the moves of all games share one log, so a single fsync commits the moves which arrived
+ * while the previous fsync ran: the more moves arrive, the more share an fsync. Once writing fails, every later
+ * record is rejected and closing the log throws the failure.
+ * <p>
+ * Every move is checked against a board the log keeps of every game, and once in a while the positions of all games
+ * are saved as a snapshot in FEN, after which the log starts a new segment and deletes the old ones. Opening the log
+ * recovers the games from the latest snapshot and the segments written after it. A record which was not written
+ * completely, because the server stopped while writing it, is dropped, and so is its move, which was never
+ * acknowledged.
+ * <p>
+ * Positions are saved in FEN, so a recovered game doesn't know the positions before its snapshot for repetitions.
+ */
+public final class MoveLog implements Closeable {
+
+    private static final int START = 1;
+    private static final int MOVE = 2;
+    private static final int END = 3;
+    private static final int CHECKPOINT = 4;
+
+    private static final int SNAPSHOT_MAGIC = 0x4E43534E;
+
+    // length and checksum before every record
+    private static final int RECORD_HEADER = 8;
+
+    // records written with a single write and fsync at most
+    private static final int MAX_BATCH = 4096;
+
+    // records written before the positions of all games are saved
+    private static final int SNAPSHOT_INTERVAL = 100_000;
+
+    private final Path directory;
+    private final int snapshotInterval;
+    private final Map<Long, Board> games;
+    private final Map<Long, Board> recovered;
+    private final BlockingQueue<Entry> queue;
+    private final Object lock;
+    private final Thread writer;
+    private final CRC32 checksum;
+
+    private ByteBuffer buffer;
+    private FileChannel segment;
+    private int segmentNumber;
+    private int sinceSnapshot;
+    private IOException failure;
+    private volatile boolean closed;
+    private volatile long records;
+    private volatile long commits;
+
+    /**
+     * Open the log of a directory, and recover the games in it
+     *
+     * @param directory Directory of the log, which is created if it doesn't exist
+     * @throws IOException If the log can't be read, or a record which was written completely is damaged
+     */
+    public MoveLog(Path directory) throws IOException {
+        this(directory, SNAPSHOT_INTERVAL);
+    }
+
+    MoveLog(Path directory, int snapshotInterval) throws IOException {
+        Files.createDirectories(directory);
+        this.directory = directory;
+        this.snapshotInterval = snapshotInterval;
+        this.games = new HashMap<>();
+        this.queue = new LinkedBlockingQueue<>();
+        this.lock = new Object();
+        this.checksum = new CRC32();
+        this.buffer = ByteBuffer.allocateDirect(1 << 16);
+
+        recover();
+
+        final Map<Long, Board> recovered = new HashMap<>();
+        for (Map.Entry<Long, Board> game : games.entrySet()) {
+            recovered.put(game.getKey(), game.getValue().copy());
+        }
+        this.recovered = Collections.unmodifiableMap(recovered);
+
+        this.writer = new Thread(this::write, "move-log");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Get the games which were recovered when the log was opened, which the server continues with
+     *
+     * @return Boards by game, which belong to the caller
+     */
+    public Map<Long, Board> getRecoveredGames() {
+        return recovered;
+    }
+
+    /**
+     * Start a game
+     *
+     * @param game  Game which is not started yet, or was ended
+     * @param board Position the game starts from
+     * @return Future which completes once the start is on disk, or fails if the game is already started
+     */
+    public CompletableFuture<Void> startGame(long game, Board board) {
+        return submit(new Entry(START, game, 0, board.toFen()));
+    }
+
+    /**
+     * Add a move which was played in a game
+     *
+     * @param game Game the move was played in
+     * @param move Packed move, see {@link com.nucleuschess.move.PackedMove}
+     * @return Future which completes once the move is on disk, or fails if the move is not legal in the game
+     */
+    public CompletableFuture<Void> append(long game, int move) {
+        return submit(new Entry(MOVE, game, move, null));
+    }
+
+    /**
+     * End a game, which isn't recovered anymore
+     */
+    public CompletableFuture<Void> endGame(long game) {
+        return submit(new Entry(END, game, 0, null));
+    }
+
+    /**
+     * Save the positions of all games now, so that opening the log doesn't need to replay the moves before
+     */
+    public CompletableFuture<Void> checkpoint() {
+        return submit(new Entry(CHECKPOINT, 0L, 0, null));
+    }
+
+    public long getRecords() {
+        return records;
+    }
+
+    /**
+     * Get the number of fsyncs the records were written with
+     */
+    public long getCommits() {
+        return commits;
+    }
+
+    /**
+     * Write the records which were added, and close the log
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (lock) {
+            closed = true;
+        }
+
+        boolean interrupted = false;
+        while (writer.isAlive()) {
+            try {
+                writer.join();
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+
+        segment.close();
+        if (failure != null) {
+            throw failure;
+        }
+    }
+
+    private CompletableFuture<Void> submit(Entry entry) {
+        synchronized (lock) {
+            if (closed) {
+                entry.future.completeExceptionally(new IllegalStateException("Move log is closed"));
+            } else {
+                queue.add(entry);
+            }
+        }
+        return entry.future;
+    }
+
+    /**
+     * Write the records in batches until the log is closed
+     */
+    private void write() {
+        final List<Entry> batch = new ArrayList<>();
+
+        while (!closed || !queue.isEmpty()) {
+            try {
+                final Entry first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) continue;
+
+                batch.add(first);
+                queue.drainTo(batch, MAX_BATCH - 1);
+            } catch (InterruptedException e) {
+                continue;
+            }
+
+            commit(batch);
+            batch.clear();
+        }
+    }
+
+    private void commit(List<Entry> batch) {
+        final List<Entry> written = new ArrayList<>(batch.size());
+        final List<Entry> checkpoints = new ArrayList<>();
+        int count = 0;
+        buffer.clear();
+
+        for (Entry entry : batch) {
+            if (failure != null) {
+                entry.future.completeExceptionally(failure);
+            } else if (entry.type == CHECKPOINT) {
+                checkpoints.add(entry);
+            } else {
+                try {
+                    entry.ended = entry.type == END ? games.get(entry.game) : null;
+                    apply(entry.type, entry.game, entry.move, entry.fen);
+                    encode(entry);
+                    written.add(entry);
+                    count++;
+                } catch (IllegalArgumentException e) {
+                    entry.future.completeExceptionally(e);
+                }
+            }
+        }
+
+        if (written.isEmpty() && checkpoints.isEmpty()) return;
+
+        if (!written.isEmpty()) {
+            try {
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    segment.write(buffer);
+                }
+                segment.force(false);
+
+                records += count;
+                commits++;
+                sinceSnapshot += count;
+            } catch (IOException e) {
+                failure = e;
+
+                // the boards have to match the log, which doesn't have the records of the batch
+                for (int i = written.size() - 1; i >= 0; i--) {
+                    revert(written.get(i));
+                }
+            }
+
+            // the records are on disk, so a snapshot which fails only affects the records after them
+            for (Entry entry : written) {
+                entry.ended = null;
+                if (failure == null) {
+                    entry.future.complete(null);
+                } else {
+                    entry.future.completeExceptionally(failure);
+                }
+            }
+        }
+
+        if (failure == null && (!checkpoints.isEmpty() || sinceSnapshot >= snapshotInterval)) {
+            try {
+                saveSnapshot();
+            } catch (IOException e) {
+                failure = e;
+            }
+        }
+
+        for (Entry entry : checkpoints) {
+            if (failure == null) {
+                entry.future.complete(null);
+            } else {
+                entry.future.completeExceptionally(failure);
+            }
+        }
+    }
+
+    private void encode(Entry entry) {
+        final byte[] fen = entry.fen == null ? null : entry.fen.getBytes(StandardCharsets.UTF_8);
+        final int length = 9 + (entry.type == MOVE ? 4 : 0) + (fen == null ? 0 : fen.length);
+
+        if (buffer.remaining() < RECORD_HEADER + length) {
+            final ByteBuffer larger = ByteBuffer.allocateDirect(Math.max(buffer.capacity() * 2, buffer.position() + RECORD_HEADER + length));
+            buffer.flip();
+            buffer = larger.put(buffer);
+        }
+
+        final int start = buffer.position();
+        buffer.position(start + RECORD_HEADER);
+        buffer.put((byte) entry.type).putLong(entry.game);
+
+        if (entry.type == MOVE) {
+            buffer.putInt(entry.move);
+        } else if (fen != null) {
+            buffer.put(fen);
+        }
+
+        final ByteBuffer record = buffer.duplicate();
+        record.position(start + RECORD_HEADER).limit(buffer.position());
+        checksum.reset();
+        checksum.update(record);
+
+        buffer.putInt(start, length).putInt(start + 4, (int) checksum.getValue());
+    }
+
+    /**
+     * Play a record on the board of its game
+     *
+     * @throws IllegalArgumentException If the record doesn't fit the game
+     */
+    private void apply(int type, long game, int move, String fen) {
+        final Board board = games.get(game);
+
+        if (type == START) {
+            if (board != null) throw new IllegalArgumentException("Game " + game + " is already started");
+            games.put(game, Board.fromFen(fen));
+            return;
+        }
+
+        if (board == null) throw new IllegalArgumentException("Game " + game + " is not started");
+
+        if (type == END) {
+            games.remove(game);
+        } else if (board.isLegal(move)) {
+            board.makeMove(move);
+        } else {
+            throw new IllegalArgumentException("Move is not legal in game " + game);
+        }
+    }
+
+    /**
+     * Take back a record which was played on the board of its game, but could not be written
+     */
+    private void revert(Entry entry) {
+        if (entry.type == START) {
+            games.remove(entry.game);
+        } else if (entry.type == END) {
+            games.put(entry.game, entry.ended);
+        } else {
+            games.get(entry.game).unmakeMove();
+        }
+    }
+
+    /**
+     * Save the positions of all games, start a new segment and delete the segments the snapshot replaces
+     */
+    private void saveSnapshot() throws IOException {
+        final int next = segmentNumber + 1;
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        try (DataOutputStream out = new DataOutputStream(bytes)) {
+            out.writeInt(SNAPSHOT_MAGIC);
+            out.writeInt(games.size());
+
+            for (Map.Entry<Long, Board> game : games.entrySet()) {
+                out.writeLong(game.getKey());
+                out.writeUTF(game.getValue().toFen());
+            }
+        }
+
+        final Path temporary = Files.createTempFile(directory, "snapshot", ".tmp");
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.WRITE)) {
+            final ByteBuffer snapshot = ByteBuffer.wrap(bytes.toByteArray());
+            while (snapshot.hasRemaining()) {
+                out.write(snapshot);
+            }
+            out.force(true);
+        }
+        Files.move(temporary, getSnapshotPath(next), StandardCopyOption.ATOMIC_MOVE);
+        forceDirectory();
+
+        segment.close();
+        openSegment(next);
+        sinceSnapshot = 0;
+        deleteBefore(next);
+    }
+
+    /**
+     * Load the latest snapshot and replay the segments written after it
+     */
+    private void recover() throws IOException {
+        final TreeMap<Integer, Path> snapshots = list("snapshot-", ".dat");
+        final TreeMap<Integer, Path> segments = list("segment-", ".log");
+        int first = 0;
+
+        if (!snapshots.isEmpty()) {
+            first = snapshots.lastKey();
+
+            try (DataInputStream in = new DataInputStream(Files.newInputStream(snapshots.lastEntry().getValue()))) {
+                if (in.readInt() != SNAPSHOT_MAGIC) {
+                    throw new IOException("Snapshot " + first + " is not a snapshot");
+                }
+                for (int i = in.readInt(); i > 0; i--) {
+                    games.put(in.readLong(), Board.fromFen(in.readUTF()));
+                }
+            }
+        }
+
+        int last = first - 1;
+        for (Map.Entry<Integer, Path> segment : segments.tailMap(first).entrySet()) {
+            replay(segment.getValue(), segment.getKey().equals(segments.lastKey()));
+            last = segment.getKey();
+        }
+
+        deleteBefore(first);
+        try (Stream<Path> files = Files.list(directory)) {
+            for (Path path : files.filter(path -> path.toString().endsWith(".tmp")).collect(Collectors.toList())) {
+                Files.delete(path);
+            }
+        }
+        openSegment(last + 1);
+    }
+
+    /**
+     * Replay the records of a segment onto the games
+     *
+     * @param last Whether it's the last segment, which may end with a record that was not written completely
+     */
+    private void replay(Path path, boolean last) throws IOException {
+        final ByteBuffer data = ByteBuffer.wrap(Files.readAllBytes(path));
+        int end = 0;
+
+        while (data.remaining() >= RECORD_HEADER) {
+            final int length = data.getInt();
+            final int expected = data.getInt();
+            if (length < 9 || length > data.remaining()) break;
+
+            final ByteBuffer record = data.slice();
+            record.limit(length);
+            checksum.reset();
+            checksum.update(record.duplicate());
+            if ((int) checksum.getValue() != expected) break;
+
+            final int type = record.get();
+            final long game = record.getLong();
+            final int move = type == MOVE ? record.getInt() : 0;
+            final String fen = type == START ? StandardCharsets.UTF_8.decode(record).toString() : null;
+
+            try {
+                apply(type, game, move, fen);
+            } catch (IllegalArgumentException e) {
+                throw new IOException("Record at " + end + " of " + path.getFileName() + " doesn't fit its game", e);
+            }
+
+            end += RECORD_HEADER + length;
+            data.position(end);
+            sinceSnapshot++;
+        }
+
+        if (end < data.limit()) {
+            if (!last) {
+                throw new IOException(path.getFileName() + " is damaged at " + end);
+            }
+
+            try (FileChannel channel = FileChannel.open(path, StandardOpenOption.WRITE)) {
+                channel.truncate(end);
+                channel.force(true);
+            }
+        }
+    }
+
+    private void openSegment(int number) throws IOException {
+        segmentNumber = number;
+        segment = FileChannel.open(getSegmentPath(number), StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        forceDirectory();
+    }
+
+    /**
+     * Write the entries of the directory to disk, so files which were created or renamed survive a power loss before
+     * the files they replace are deleted
+     */
+    private void forceDirectory() throws IOException {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Delete the segments and snapshots a snapshot replaces
+     */
+    private void deleteBefore(int number) throws IOException {
+        for (Path path : list("segment-", ".log").headMap(number).values()) {
+            Files.delete(path);
+        }
+        for (Path path : list("snapshot-", ".dat").headMap(number).values()) {
+            Files.delete(path);
+        }
+    }
+
+    private TreeMap<Integer, Path> list(String prefix, String suffix) throws IOException {
+        final TreeMap<Integer, Path> files = new TreeMap<>();
+
+        try (Stream<Path> paths = Files.list(directory)) {
+            for (Path path : paths.collect(Collectors.toList())) {
+                final String name = path.getFileName().toString();
+
+                if (name.startsWith(prefix) && name.endsWith(suffix)) {
+                    files.put(Integer.parseInt(name.substring(prefix.length(), name.length() - suffix.length())), path);
+                }
+            }
+        }
+        return files;
+    }
+
+    private Path getSegmentPath(int number) {
+        return directory.resolve(String.format("segment-%010d.log", number));
+    }
+
+    private Path getSnapshotPath(int number) {
+        return directory.resolve(String.format("snapshot-%010d.dat", number));
+    }
+
+    private static final class Entry {
+
+        private final int type;
+        private final long game;
+        private final int move;
+        private final String fen;
+        private final CompletableFuture<Void> future;
+
+        // board of a game which was ended, until the end is on disk
+        private Board ended;
+
+        private Entry(int type, long game, int move, String fen) {
+            this.type = type;
+            this.game = game;
+            this.move = move;
+            this.fen = fen;
+            this.future = new CompletableFuture<>();
+        }
+    }
+}
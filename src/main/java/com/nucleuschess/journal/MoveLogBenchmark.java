@@ -0,0 +1,109 @@
+package com.nucleuschess.journal;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Plays random games on many threads at once to measure the throughput of a {@link MoveLog} and how long a move
+ * waits until it's on disk
+ */
+public final class MoveLogBenchmark {
+
+    private MoveLogBenchmark() {
+    }
+
+    /**
+     * Measure the throughput and latency of moves played in many games at once: {@code MoveLogBenchmark <directory> [threads]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: MoveLogBenchmark <directory> [threads]");
+            return;
+        }
+
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : 64;
+        final int moves = 200;
+        final long[] latency = new long[threads];
+
+        try (MoveLog log = new MoveLog(Paths.get(args[0]))) {
+            final long start = System.nanoTime();
+            final List<Thread> players = new ArrayList<>();
+
+            for (int i = 0; i < threads; i++) {
+                final int player = i;
+                final Thread thread = new Thread(() -> latency[player] = play(log, player * 1_000_000L, moves));
+                players.add(thread);
+                thread.start();
+            }
+            for (Thread thread : players) {
+                try {
+                    thread.join();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return;
+                }
+            }
+
+            final long time = System.nanoTime() - start;
+            final long total = (long) threads * moves;
+            System.out.printf("Moves: %d in %d games, %d records in %d commits%n", total, threads, log.getRecords(), log.getCommits());
+            System.out.printf("Moves/s: %.0f%n", total * 1e9 / time);
+            System.out.printf("Latency: %.3f ms%n", Arrays.stream(latency).sum() / 1e6 / total);
+        }
+    }
+
+    /**
+     * Play random moves in a new game, waiting for every move to be on disk
+     *
+     * @return Nanoseconds waited in total
+     */
+    private static long play(MoveLog log, long game, int moves) {
+        final Random random = new Random(game);
+        final MoveList legal = new MoveList();
+        Board board = new Board();
+        long waited = 0L;
+
+        log.startGame(game, board).join();
+        for (int i = 0; i < moves; i++) {
+            legal.clear();
+            board.generateLegalMoves(legal);
+
+            if (legal.isEmpty()) {
+                log.endGame(game).join();
+                board = new Board();
+                log.startGame(++game, board).join();
+                continue;
+            }
+
+            final int move = legal.get(random.nextInt(legal.size()));
+            board.makeMove(move);
+
+            final long start = System.nanoTime();
+            log.append(game, move).join();
+            waited += System.nanoTime() - start;
+        }
+        log.endGame(game).join();
+        return waited;
+    }
+}
@@ -1,6 +1,7 @@
 package com.nucleuschess.move;
 
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.Position;
 import com.nucleuschess.piece.Piece;
 
 /*
@@ -28,4 +29,8 @@ public abstract class AbstractMoveChecker<T extends Piece> implements MoveChecke
         return true;
     }
 
+    protected boolean isOwnPiece(T piece, Position position) {
+        return !board.isEmpty(position) && board.getPiece(position).getColor() == piece.getColor();
+    }
+
 }
@@ -1,7 +1,10 @@
 package com.nucleuschess.move;
 
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.Position;
 import com.nucleuschess.piece.Piece;
+import com.nucleuschess.piece.PieceType;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -23,4 +26,42 @@ public abstract class AbstractMoveFinder<T extends Piece> implements MoveFinder<
     public AbstractMoveFinder(Board board) {
         this.board = board;
     }
+
+    protected Move[] getMoves(T piece, Position from, long targets) {
+        return getMoves(piece, from, targets, targets);
+    }
+
+    /**
+     * Create the moves of a piece to a set of squares
+     *
+     * @param piece   Piece which moves
+     * @param from    Square of the piece
+     * @param targets Squares the piece moves to
+     * @param attacks Squares on which the piece would capture a piece of the other color
+     * @return Moves to every target, flagged as capture when they take a piece
+     */
+    protected Move[] getMoves(T piece, Position from, long targets, long attacks) {
+        final Move[] moves = new Move[Long.bitCount(targets)];
+        final long captures = attacks & board.getOccupied(piece.getColor().opposite());
+
+        for (int i = 0; targets != 0; targets &= targets - 1, i++) {
+            final int to = Long.numberOfTrailingZeros(targets);
+            moves[i] = new Move(board.getMoveCounter() + 1, piece, from, Position.fromOrdinal(to), Bitboards.contains(captures, to));
+        }
+        return moves;
+    }
+
+    protected void addMoves(int from, long destinations, MoveList moves) {
+        final Piece piece = board.getPiece(from);
+
+        for (; destinations != 0; destinations &= destinations - 1) {
+            final int to = Long.numberOfTrailingZeros(destinations);
+            moves.add(PackedMove.of(from, to, piece.getType(), piece.getColor(), getCaptured(to), null, 0));
+        }
+    }
+
+    protected PieceType getCaptured(int square) {
+        final Piece captured = board.getPiece(square);
+        return captured == null ? null : captured.getType();
+    }
 }
@@ -2,8 +2,8 @@ package com.nucleuschess.move;
 
 import com.nucleuschess.Color;
 import com.nucleuschess.board.Position;
-import com.nucleuschess.board.PositionUtility;
 import com.nucleuschess.piece.Piece;
+import com.nucleuschess.piece.PieceType;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -26,14 +26,20 @@ public final class Move {
     private final Position from;
     private final Position to;
     private final boolean isCapture;
+    private final PieceType promotion;
 
     public Move(int number, Piece piece, Position from, Position to, boolean isCapture) {
+        this(number, piece, from, to, isCapture, null);
+    }
+
+    public Move(int number, Piece piece, Position from, Position to, boolean isCapture, PieceType promotion) {
         this.number = number;
         this.piece = piece;
         this.color = piece.getColor();
         this.from = from;
         this.to = to;
         this.isCapture = isCapture;
+        this.promotion = promotion;
     }
 
     public int getNumber() {
@@ -61,10 +67,19 @@ public final class Move {
     }
 
     public int getHorizontalSteps() {
-        return Math.abs(PositionUtility.getFileNumber(from.getFile()) - PositionUtility.getFileNumber(to.getFile()));
+        return Math.abs(from.getFileNumber() - to.getFileNumber());
     }
 
     public boolean isCapture() {
         return isCapture;
     }
+
+    /**
+     * Get the type a pawn is promoted to when it reaches the last rank
+     *
+     * @return The type of the promoted piece, or null to promote to a {@link PieceType#QUEEN}
+     */
+    public PieceType getPromotion() {
+        return promotion;
+    }
 }
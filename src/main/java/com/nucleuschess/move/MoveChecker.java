@@ -1,4 +1,6 @@
 package com.nucleuschess.move;
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.piece.Piece;
 
 /*
@@ -19,18 +21,14 @@ public interface MoveChecker<T extends Piece> {
     boolean check(T piece, Move move);
 
     default boolean isHorizontal(Move move) {
-        return move.getHorizontalSteps() > 0 && move.getVerticalSteps() == 0;
+        return move.getFrom() != move.getTo() && move.getFrom().getRank() == move.getTo().getRank();
     }
 
     default boolean isVertical(Move move) {
-        return move.getVerticalSteps() > 0 && move.getHorizontalSteps() == 0;
+        return move.getFrom() != move.getTo() && move.getFrom().getFile() == move.getTo().getFile();
     }
 
     default boolean isDiagonal(Move move) {
-        if (move.getFrom() == move.getTo()) return false;
-        if (isHorizontal(move)) return false;
-        if (isVertical(move)) return false;
-
-        return Math.abs(move.getHorizontalSteps() / move.getVerticalSteps()) == 1;
+        return Bitboards.contains(AttackTables.bishop(move.getFrom().ordinal()), move.getTo().ordinal());
     }
 }
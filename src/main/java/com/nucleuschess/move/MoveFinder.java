@@ -18,4 +18,13 @@ public interface MoveFinder<T extends Piece> {
 
     Move[] getPotentialMoves(T piece);
 
+    /**
+     * Add the moves of the piece on a square to a list of {@link PackedMove packed moves}
+     *
+     * @param from    Square of the piece
+     * @param targets Squares the piece may move to, usually every square not occupied by its own color
+     * @param moves   List the moves are added to
+     */
+    void findMoves(int from, long targets, MoveList moves);
+
 }
@@ -0,0 +1,77 @@
+package com.nucleuschess.move;
+
+import java.util.Arrays;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * A reusable list of {@link PackedMove packed moves}, backed by a plain {@code int[]}. Move generation fills the
+ * list in place, so one list can be kept per search ply and cleared instead of allocating new arrays.
+ */
+public final class MoveList {
+
+    /**
+     * No position has more than 218 legal moves, so this is enough for any position that can occur in a game
+     */
+    public static final int CAPACITY = 256;
+
+    private final int[] moves;
+    private int size;
+
+    public MoveList() {
+        this(CAPACITY);
+    }
+
+    public MoveList(int capacity) {
+        this.moves = new int[capacity];
+    }
+
+    public void add(int move) {
+        moves[size++] = move;
+    }
+
+    public int get(int index) {
+        return moves[index];
+    }
+
+    public void set(int index, int move) {
+        moves[index] = move;
+    }
+
+    public boolean contains(int move) {
+        for (int i = 0; i < size; i++) {
+            if (moves[i] == move) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int[] toArray() {
+        return Arrays.copyOf(moves, size);
+    }
+}
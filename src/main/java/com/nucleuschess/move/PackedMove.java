@@ -0,0 +1,118 @@
+package com.nucleuschess.move;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Position;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Utility class for moves packed in a single {@code int}, so they can be generated and stored without creating
+ * {@link Move} objects. The bits are laid out as follows:
+ * <pre>
+ *  0 -  5  square the piece moves from
+ *  6 - 11  square the piece moves to
+ * 12       color of the piece
+ * 13 - 15  type of the piece
+ * 16 - 18  type of the captured piece + 1, or 0 if nothing is captured
+ * 19 - 21  type the pawn is promoted to + 1, or 0 if the move is not a promotion
+ * 22 - 24  flags: {@link #EN_PASSANT}, {@link #CASTLING} and {@link #DOUBLE_PUSH}
+ * </pre>
+ */
+public final class PackedMove {
+
+    public static final int NONE = 0;
+
+    public static final int EN_PASSANT = 1;
+    public static final int CASTLING = 2;
+    public static final int DOUBLE_PUSH = 4;
+
+    private static final PieceType[] TYPES = PieceType.values();
+    private static final Color[] COLORS = Color.values();
+
+    private PackedMove() {
+    }
+
+    public static int of(int from, int to, PieceType piece, Color color, PieceType captured, PieceType promotion, int flags) {
+        return from | to << 6 | color.ordinal() << 12 | piece.ordinal() << 13
+                | (captured == null ? 0 : captured.ordinal() + 1) << 16
+                | (promotion == null ? 0 : promotion.ordinal() + 1) << 19
+                | flags << 22;
+    }
+
+    public static int getFrom(int move) {
+        return move & 0x3F;
+    }
+
+    public static int getTo(int move) {
+        return move >>> 6 & 0x3F;
+    }
+
+    public static Color getColor(int move) {
+        return COLORS[move >>> 12 & 0x1];
+    }
+
+    public static PieceType getPiece(int move) {
+        return TYPES[move >>> 13 & 0x7];
+    }
+
+    public static PieceType getCaptured(int move) {
+        final int captured = move >>> 16 & 0x7;
+        return captured == 0 ? null : TYPES[captured - 1];
+    }
+
+    public static PieceType getPromotion(int move) {
+        final int promotion = move >>> 19 & 0x7;
+        return promotion == 0 ? null : TYPES[promotion - 1];
+    }
+
+    public static int getFlags(int move) {
+        return move >>> 22 & 0x7;
+    }
+
+    public static boolean isCapture(int move) {
+        return (move & 0x7 << 16) != 0;
+    }
+
+    public static boolean isPromotion(int move) {
+        return (move & 0x7 << 19) != 0;
+    }
+
+    public static boolean isEnPassant(int move) {
+        return (getFlags(move) & EN_PASSANT) != 0;
+    }
+
+    public static boolean isCastling(int move) {
+        return (getFlags(move) & CASTLING) != 0;
+    }
+
+    public static boolean isDoublePush(int move) {
+        return (getFlags(move) & DOUBLE_PUSH) != 0;
+    }
+
+    /**
+     * Write a move in long algebraic notation, such as e2e4 or e7e8q
+     *
+     * @param move Packed move
+     * @return The notation of the move
+     */
+    public static String toString(int move) {
+        final String squares = Position.fromOrdinal(getFrom(move)).name().toLowerCase()
+                + Position.fromOrdinal(getTo(move)).name().toLowerCase();
+        final PieceType promotion = getPromotion(move);
+
+        return promotion == null ? squares : squares + Character.toLowerCase(promotion.name().charAt(promotion == PieceType.KNIGHT ? 1 : 0));
+    }
+}
@@ -1,6 +1,8 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
 import com.nucleuschess.piece.Bishop;
@@ -27,9 +29,9 @@ public final class BishopMoveChecker extends AbstractMoveChecker<Bishop> {
     @Override
     public boolean check(Bishop piece, Move move) {
         // Bishops can only move diagonal
-        if (!isDiagonal(move)) return false;
-        if (!board.isEmpty(move.getTo())) return false;
+        final long attacks = MagicBitboards.bishop(move.getFrom().ordinal(), board.getOccupied());
 
-        return !board.hasObstructionDiagonally(move.getFrom(), move.getTo());
+        if (!Bitboards.contains(attacks, move.getTo().ordinal())) return false;
+        return !isOwnPiece(piece, move.getTo());
     }
 }
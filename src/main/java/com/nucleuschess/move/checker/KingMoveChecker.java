@@ -1,10 +1,11 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
 import com.nucleuschess.piece.King;
-import com.nucleuschess.util.Magic;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -27,10 +28,8 @@ public final class KingMoveChecker extends AbstractMoveChecker<King> {
 
     @Override
     public boolean check(King piece, Move move) {
-        if (move.getHorizontalSteps() > Magic.MAX_KING_STEPS_SIDEWARDS) return false;
-        if (move.getVerticalSteps() > Magic.MAX_KING_STEPS_FORWARD) return false;
-        if (!board.isEmpty(move.getTo())) return false;
+        if (!Bitboards.contains(AttackTables.king(move.getFrom().ordinal()), move.getTo().ordinal())) return false;
 
-        return true;
+        return !isOwnPiece(piece, move.getTo());
     }
 }
@@ -1,10 +1,11 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
 import com.nucleuschess.piece.Knight;
-import com.nucleuschess.util.Magic;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -27,20 +28,9 @@ public final class KnightMoveChecker extends AbstractMoveChecker<Knight> {
 
     @Override
     public boolean check(Knight piece, Move move) {
-        if (isHorizontal(move)) return false;
-        if (isVertical(move)) return false;
-        if (isDiagonal(move)) return false;
-
-        final int horizontalSteps = Math.abs(move.getHorizontalSteps());
-        final int verticalSteps = Math.abs(move.getVerticalSteps());
+        if (!Bitboards.contains(AttackTables.knight(move.getFrom().ordinal()), move.getTo().ordinal())) return false;
 
         // Can't capture own pieces
-        if (!board.isEmpty(move.getTo()) && board.getPiece(move.getTo()).getColor() == piece.getColor()) {
-            return false;
-        }
-
-        if (horizontalSteps > Magic.MAX_KNIGHT_STEPS_SIDEWARDS || horizontalSteps < Magic.MIN_KNIGHT_STEPS_SIDEWARDS)
-            return false;
-        return verticalSteps <= Magic.MAX_KNIGHT_STEPS_FORWARD && verticalSteps >= Magic.MIN_KNIGHT_STEPS_FORWARD;
+        return !isOwnPiece(piece, move.getTo());
     }
 }
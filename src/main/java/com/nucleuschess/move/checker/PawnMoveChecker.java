@@ -1,11 +1,11 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
-import com.nucleuschess.board.Position;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
 import com.nucleuschess.piece.Pawn;
-import com.nucleuschess.util.Magic;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -28,36 +28,28 @@ public final class PawnMoveChecker extends AbstractMoveChecker<Pawn> {
 
     @Override
     public boolean check(Pawn pawn, Move move) {
-        final Position from = move.getFrom();
-        final Position to = move.getTo();
+        final int from = move.getFrom().ordinal();
+        final int to = move.getTo().ordinal();
 
-        final int fromFile = from.getFileNumber();
-        final int toFile = to.getFileNumber();
-
-        final int forwardSteps = to.getRank() - from.getRank();
-        final int sideSteps = toFile - fromFile;
-
-        // if you are in check and have to deal with this.
-//        if (board.isInCheck(pawn.getColor())) {
-//             TODO FIND CHECK-BLOCKING MOVES
-//            return false;
-//        }
+        // pawns capture diagonally
+        if (Bitboards.contains(AttackTables.pawn(pawn.getColor(), from), to)) {
+            return !board.isEmpty(move.getTo()) && !isOwnPiece(pawn, move.getTo()) && isLegal(move);
+        }
 
-        if (Math.abs(sideSteps) > Magic.MAX_PAWN_STEPS_SIDEWARDS) return false;
+        // pawns can't move backwards or sidewards
+        if (!Bitboards.contains(AttackTables.pawnPushes(pawn.getColor(), from), to)) return false;
 
-        if (forwardSteps == 2) {
-            if (pawn.hasMoved()) return false;
-            return board.isEmpty(Position.valueOf(to.getFileNumber(), to.getRank() - 1));
-        }
-        // pawns can't move backwards
-        if (forwardSteps < Magic.MIN_PAWN_STEPS_FORWARD || forwardSteps > Magic.MAX_PAWN_STEPS_FORWARD) {
-            return false;
-        }
+        final long path = AttackTables.between(from, to);
+        if (path != 0 && pawn.hasMoved()) return false;
 
-        // TODO if pinned (scan other attackers)
+        // pawns can't capture forwards
+        return ((path | 1L << to) & board.getOccupied()) == 0 && isLegal(move);
+    }
 
-        // squares is already occupied
-        // TODO fix this will prevent pawns from capturing
-        return board.isEmpty(to);
+    /**
+     * Whether the move keeps the own king out of check, so a pinned pawn stays on its pin
+     */
+    private boolean isLegal(Move move) {
+        return Bitboards.contains(board.getLegalTargets(move.getFrom().ordinal()), move.getTo().ordinal());
     }
 }
@@ -1,6 +1,8 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
 import com.nucleuschess.piece.Queen;
@@ -26,15 +28,9 @@ public final class QueenMoveChecker extends AbstractMoveChecker<Queen> {
 
     @Override
     public boolean check(Queen piece, Move move) {
-        if (isHorizontal(move) && board.hasObstructionHorizontally(move.getFrom(), move.getTo().getFileNumber())) {
-            return false;
-        }
+        final long attacks = MagicBitboards.queen(move.getFrom().ordinal(), board.getOccupied());
 
-        if (!board.isEmpty(move.getTo())) return false;
-
-        if (isVertical(move) && board.hasObstructionVertically(move.getFrom(), move.getTo().getRank())) {
-            return false;
-        }
-        return !isDiagonal(move) || !board.hasObstructionDiagonally(move.getFrom(), move.getTo());
+        if (!Bitboards.contains(attacks, move.getTo().ordinal())) return false;
+        return !isOwnPiece(piece, move.getTo());
     }
 }
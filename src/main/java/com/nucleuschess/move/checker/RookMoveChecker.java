@@ -1,10 +1,10 @@
 package com.nucleuschess.move.checker;
 
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
-import com.nucleuschess.board.Position;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.move.AbstractMoveChecker;
 import com.nucleuschess.move.Move;
-import com.nucleuschess.piece.Piece;
 import com.nucleuschess.piece.Rook;
 
 /*
@@ -29,32 +29,9 @@ public final class RookMoveChecker extends AbstractMoveChecker<Rook> {
     @Override
     public boolean check(Rook piece, Move move) {
         // rooks can only move horizontally and vertically
+        final long attacks = MagicBitboards.rook(move.getFrom().ordinal(), board.getOccupied());
 
-        if (!isHorizontal(move) && !isVertical(move)) {
-            return false;
-        }
-        if (isHorizontal(move) && board.hasObstructionHorizontally(move.getFrom(), move.getTo().getFileNumber())) {
-            final Piece obstruction = board.getObstructionHorizontally(move.getFrom(), move.getTo().getFileNumber());
-            return isObstructionNull(piece, move, obstruction);
-        } else if (isVertical(move) && board.hasObstructionVertically(move.getFrom(), move.getTo().getRank())) {
-            final Piece obstruction = board.getObstructionVertically(move.getFrom(), move.getTo().getRank());
-            return isObstructionNull(piece, move, obstruction);
-        }
-        return true;
-    }
-
-    private boolean isObstructionNull(Rook piece, Move move, Piece obstruction) {
-        if (obstruction == null) {
-            throw new IllegalStateException("Obstruction is found but object is null");
-        }
-
-        System.out.println("Obstructing piece is from type " + obstruction.getName() + ", color=" + obstruction.getColor() + ", position=" + board.getPosition(obstruction));
-
-        final Position obstructionPosition = board.getPosition(obstruction);
-        if (obstructionPosition != move.getTo()) {
-            return false;
-        }
-
-        return obstruction.getColor() != piece.getColor();
+        if (!Bitboards.contains(attacks, move.getTo().ordinal())) return false;
+        return !isOwnPiece(piece, move.getTo());
     }
 }
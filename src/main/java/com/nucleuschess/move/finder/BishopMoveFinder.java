@@ -1,13 +1,14 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.board.AttackTables;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.board.Position;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
 import com.nucleuschess.piece.Bishop;
 
-import java.util.Arrays;
-
 /*
   Copyright (C) 2021, NucleusChess.
   This program is free software: you can redistribute it and/or modify
@@ -30,8 +31,11 @@ public final class BishopMoveFinder extends AbstractMoveFinder<Bishop> {
     @Override
     public Move[] getPotentialMoves(Bishop piece) {
         final Position from = board.getPosition(piece);
-        final Position[] positions = board.getPositionsDiagonally(from);
+        return getMoves(piece, from, AttackTables.bishop(from.ordinal()));
+    }
 
-        return Arrays.stream(positions).map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false)).toArray(Move[]::new);
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        addMoves(from, MagicBitboards.bishop(from, board.getOccupied()) & targets, moves);
     }
 }
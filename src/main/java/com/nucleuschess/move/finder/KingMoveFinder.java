@@ -1,15 +1,17 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.Color;
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.CastlingRights;
 import com.nucleuschess.board.Position;
-import com.nucleuschess.board.PositionFace;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
 import com.nucleuschess.piece.King;
-
-import java.util.Arrays;
-
-import static com.nucleuschess.board.PositionFace.*;
+import com.nucleuschess.piece.PieceType;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -33,12 +35,33 @@ public final class KingMoveFinder extends AbstractMoveFinder<King> {
     @Override
     public Move[] getPotentialMoves(King piece) {
         final Position from = board.getPosition(piece);
-        final PositionFace[] faces = new PositionFace[]{
-                NORTH, SOUTH, EAST, WEST,
-                NORTH_WEST, NORTH_EAST,
-                SOUTH_WEST, SOUTH_EAST
-        };
-        return Arrays.stream(faces).filter(from::isRelative).map(from::getRelative)
-                .map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false)).toArray(Move[]::new);
+        return getMoves(piece, from, AttackTables.king(from.ordinal()));
+    }
+
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        addMoves(from, AttackTables.king(from) & targets, moves);
+
+        final Color color = board.getPiece(from).getColor();
+        final int rights = board.getCastlingRights();
+
+        // the castling rights are lost as soon as the king or rook leaves its square, so both are in place here
+        if ((rights & CastlingRights.kingside(color)) != 0 && canCastle(color, from, from + 3, from + 2, targets)) {
+            moves.add(PackedMove.of(from, from + 2, PieceType.KING, color, null, null, PackedMove.CASTLING));
+        }
+        if ((rights & CastlingRights.queenside(color)) != 0 && canCastle(color, from, from - 4, from - 2, targets)) {
+            moves.add(PackedMove.of(from, from - 2, PieceType.KING, color, null, null, PackedMove.CASTLING));
+        }
+    }
+
+    private boolean canCastle(Color color, int from, int rook, int to, long targets) {
+        if (!Bitboards.contains(targets, to)) return false;
+        if ((AttackTables.between(from, rook) & board.getOccupied()) != 0) return false;
+
+        // the king can't castle out of, through or into check
+        for (long path = AttackTables.between(from, to) | 1L << from | 1L << to; path != 0; path &= path - 1) {
+            if (board.isAttacked(Long.numberOfTrailingZeros(path), color.opposite())) return false;
+        }
+        return true;
     }
 }
@@ -1,16 +1,13 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.board.AttackTables;
 import com.nucleuschess.board.Board;
 import com.nucleuschess.board.Position;
-import com.nucleuschess.board.PositionFace;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
 import com.nucleuschess.piece.Knight;
 
-import java.util.Arrays;
-
-import static com.nucleuschess.board.PositionFace.*;
-
 /*
   Copyright (C) 2021, NucleusChess.
   This program is free software: you can redistribute it and/or modify
@@ -33,16 +30,11 @@ public final class KnightMoveFinder extends AbstractMoveFinder<Knight> {
     @Override
     public Move[] getPotentialMoves(Knight piece) {
         final Position from = board.getPosition(piece);
+        return getMoves(piece, from, AttackTables.knight(from.ordinal()));
+    }
 
-        final PositionFace[] faces = new PositionFace[]{
-                NORTH_NORTH_EAST, NORTH_NORTH_WEST,
-                NORTH_WEST_WEST, NORTH_EAST_EAST,
-
-                SOUTH_SOUTH_EAST, SOUTH_SOUTH_WEST,
-                SOUTH_EAST_EAST, SOUTH_WEST_WEST
-        };
-
-        return Arrays.stream(faces).filter(from::isRelative).map(from::getRelative)
-                .map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false)).toArray(Move[]::new);
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        addMoves(from, AttackTables.knight(from) & targets, moves);
     }
 }
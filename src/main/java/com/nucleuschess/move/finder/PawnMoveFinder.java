@@ -1,15 +1,16 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.Color;
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
 import com.nucleuschess.board.Position;
-import com.nucleuschess.board.PositionFace;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
 import com.nucleuschess.piece.Pawn;
-
-import java.util.Arrays;
-
-import static com.nucleuschess.board.PositionFace.*;
+import com.nucleuschess.piece.PieceType;
 
 /*
   Copyright (C) 2021, NucleusChess.
@@ -26,6 +27,8 @@ import static com.nucleuschess.board.PositionFace.*;
 */
 public final class PawnMoveFinder extends AbstractMoveFinder<Pawn> {
 
+    private static final PieceType[] PROMOTIONS = {PieceType.QUEEN, PieceType.ROOK, PieceType.BISHOP, PieceType.KNIGHT};
+
     public PawnMoveFinder(Board board) {
         super(board);
     }
@@ -33,9 +36,58 @@ public final class PawnMoveFinder extends AbstractMoveFinder<Pawn> {
     @Override
     public Move[] getPotentialMoves(Pawn piece) {
         final Position from = board.getPosition(piece);
-        final PositionFace[] faces = new PositionFace[]{NORTH, TWO_NORTH, NORTH_EAST, NORTH_WEST};
+        final long attacks = AttackTables.pawn(piece.getColor(), from.ordinal());
+        final long targets = AttackTables.pawnPushes(piece.getColor(), from.ordinal()) | attacks;
+
+        // pawns only capture diagonally
+        return getMoves(piece, from, targets, attacks);
+    }
+
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        final Color color = board.getPiece(from).getColor();
+        final boolean white = color == Color.WHITE;
+        final long occupied = board.getOccupied();
+        final int push = white ? from + 8 : from - 8;
+
+        if (!Bitboards.contains(occupied, push)) {
+            if (Bitboards.contains(targets, push)) {
+                addPawnMoves(from, push, color, null, moves);
+            }
+
+            final int doublePush = white ? from + 16 : from - 16;
+            if (from / 8 == (white ? 1 : 6) && !Bitboards.contains(occupied, doublePush) && Bitboards.contains(targets, doublePush)) {
+                moves.add(PackedMove.of(from, doublePush, PieceType.PAWN, color, null, null, PackedMove.DOUBLE_PUSH));
+            }
+        }
+
+        final long attacks = AttackTables.pawn(color, from);
+
+        for (long captures = attacks & board.getOccupied(color.opposite()) & targets; captures != 0; captures &= captures - 1) {
+            final int to = Long.numberOfTrailingZeros(captures);
+            addPawnMoves(from, to, color, getCaptured(to), moves);
+        }
+
+        final Position enPassant = board.getEnPassant();
+
+        if (enPassant != null && color == board.getSideToMove() && Bitboards.contains(attacks, enPassant.ordinal())) {
+            final int to = enPassant.ordinal();
+            final int captured = white ? to - 8 : to + 8;
+
+            // capturing the pawn is fine as well when only its square is a target, such as when it gives check
+            if ((targets & (1L << to | 1L << captured)) != 0) {
+                moves.add(PackedMove.of(from, to, PieceType.PAWN, color, PieceType.PAWN, null, PackedMove.EN_PASSANT));
+            }
+        }
+    }
 
-        return Arrays.stream(faces).filter(from::isRelative).map(from::getRelative)
-                .map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false)).toArray(Move[]::new);
+    private void addPawnMoves(int from, int to, Color color, PieceType captured, MoveList moves) {
+        if (to < 8 || to >= 56) {
+            for (PieceType promotion : PROMOTIONS) {
+                moves.add(PackedMove.of(from, to, PieceType.PAWN, color, captured, promotion, 0));
+            }
+        } else {
+            moves.add(PackedMove.of(from, to, PieceType.PAWN, color, captured, null, 0));
+        }
     }
 }
@@ -1,15 +1,14 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.board.AttackTables;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.board.Position;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
 import com.nucleuschess.piece.Queen;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
-
 /*
   Copyright (C) 2021, NucleusChess.
   This program is free software: you can redistribute it and/or modify
@@ -32,16 +31,11 @@ public final class QueenMoveFinder extends AbstractMoveFinder<Queen> {
     @Override
     public Move[] getPotentialMoves(Queen piece) {
         final Position from = board.getPosition(piece);
-        final Position[] horizontal = Position.valuesOf(from.getRank());
-        final Position[] vertical = Position.valuesOf(from.getFile());
-        final Position[] diagonal = board.getPositionsDiagonally(from);
-
-        Set<Position> positions = new HashSet<>();
-        positions.addAll(Arrays.asList(horizontal));
-        positions.addAll(Arrays.asList(vertical));
-        positions.addAll(Arrays.asList(diagonal));
-        positions.remove(from);
+        return getMoves(piece, from, AttackTables.queen(from.ordinal()));
+    }
 
-        return positions.stream().map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false)).toArray(Move[]::new);
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        addMoves(from, MagicBitboards.queen(from, board.getOccupied()) & targets, moves);
     }
 }
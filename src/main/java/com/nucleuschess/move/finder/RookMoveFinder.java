@@ -1,15 +1,14 @@
 package com.nucleuschess.move.finder;
 
+import com.nucleuschess.board.AttackTables;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.MagicBitboards;
 import com.nucleuschess.board.Position;
 import com.nucleuschess.move.AbstractMoveFinder;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
 import com.nucleuschess.piece.Rook;
 
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
-
 /*
   Copyright (C) 2021, NucleusChess.
   This program is free software: you can redistribute it and/or modify
@@ -31,17 +30,12 @@ public final class RookMoveFinder extends AbstractMoveFinder<Rook> {
 
     @Override
     public Move[] getPotentialMoves(Rook piece) {
-        List<Move> moves = new ArrayList<>();
-
         final Position from = board.getPosition(piece);
+        return getMoves(piece, from, AttackTables.rook(from.ordinal()));
+    }
 
-        Arrays.stream(Position.valuesOf(from.getRank())).filter(p -> p != from)
-                .map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false))
-                .forEach(moves::add);
-        Arrays.stream(Position.valuesOf(from.getFile())).filter(p -> p != from)
-                .map(p -> new Move(board.getMoveCounter() + 1, piece, from, p, false))
-                .forEach(moves::add);
-
-        return moves.toArray(Move[]::new);
+    @Override
+    public void findMoves(int from, long targets, MoveList moves) {
+        addMoves(from, MagicBitboards.rook(from, board.getOccupied()) & targets, moves);
     }
 }
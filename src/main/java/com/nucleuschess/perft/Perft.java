@@ -0,0 +1,191 @@
+package com.nucleuschess.perft;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveTask;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Counts the leaf nodes of the legal move tree of a position up to a fixed depth. The counts of many positions are
+ * known, which makes perft the reference for the correctness of move generation as well as a benchmark for it.
+ */
+public final class Perft {
+
+    /**
+     * Known node counts of the starting position, indexed by depth
+     */
+    public static final long[] START_POSITION = {1L, 20L, 400L, 8_902L, 197_281L, 4_865_609L, 119_060_324L};
+
+    /**
+     * Positions which are known to find bugs in castling, en passant, promotions and pins
+     */
+    public static final String KIWIPETE = "r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1";
+    public static final String ENDGAME = "8/2p5/3p4/KP5r/1R3p1k/8/4P1P1/8 w - - 0 1";
+    public static final String PROMOTIONS = "r3k2r/Pppp1ppp/1b3nbN/nP6/BBP1P3/q4N2/Pp1P2PP/R2Q1RK1 w kq - 0 1";
+    public static final String CHECKS = "rnbq1k1r/pp1Pbppp/2p5/8/2B5/8/PPP1NnPP/RNBQK2R w KQ - 1 8";
+
+    /**
+     * Known node counts of the positions above, indexed by depth
+     */
+    public static final long[] KIWIPETE_COUNTS = {1L, 48L, 2_039L, 97_862L, 4_085_603L};
+    public static final long[] ENDGAME_COUNTS = {1L, 14L, 191L, 2_812L, 43_238L, 674_624L};
+    public static final long[] PROMOTIONS_COUNTS = {1L, 6L, 264L, 9_467L, 422_333L};
+    public static final long[] CHECKS_COUNTS = {1L, 44L, 1_486L, 62_379L, 2_103_487L};
+
+    private final Board board;
+    private final MoveList[] moves;
+
+    public Perft(Board board, int maxDepth) {
+        this.board = board;
+        this.moves = new MoveList[Math.max(maxDepth, 1)];
+
+        for (int ply = 0; ply < moves.length; ply++) {
+            moves[ply] = new MoveList();
+        }
+    }
+
+    /**
+     * Count the leaf nodes up to a depth
+     *
+     * @param depth Depth in plies, at most the max depth of this perft
+     * @return Number of positions reached after exactly {@code depth} moves
+     */
+    public long perft(int depth) {
+        if (depth > moves.length) {
+            throw new IllegalArgumentException("Depth is larger than the max depth " + moves.length);
+        }
+        return depth == 0 ? 1L : count(depth, 0);
+    }
+
+    private long count(int depth, int ply) {
+        final MoveList list = moves[ply];
+
+        list.clear();
+        board.generateLegalMoves(list);
+
+        // every generated move is legal, so the leaves don't have to be made
+        if (depth == 1) {
+            return list.size();
+        }
+
+        long nodes = 0L;
+        for (int i = 0; i < list.size(); i++) {
+            board.makeMove(list.get(i));
+            nodes += count(depth - 1, ply + 1);
+            board.unmakeMove();
+        }
+        return nodes;
+    }
+
+    /**
+     * Count the leaf nodes below every legal move of a position. Every root move is counted in its own task on a
+     * copy of the board, so the moves are divided over the threads of the pool.
+     *
+     * @param board Position to count from, which is not changed
+     * @param depth Depth in plies, at least 1
+     * @param pool  Pool which runs the tasks
+     * @return Node count of every root move in UCI notation, in the order the moves were generated
+     */
+    public static Map<String, Long> divide(Board board, int depth, ForkJoinPool pool) {
+        if (depth < 1) {
+            throw new IllegalArgumentException("Depth must be at least 1");
+        }
+
+        final MoveList root = new MoveList();
+        board.generateLegalMoves(root);
+
+        final Map<String, ForkJoinTask<Long>> tasks = new LinkedHashMap<>();
+        for (int i = 0; i < root.size(); i++) {
+            final int move = root.get(i);
+            tasks.put(PackedMove.toString(move), pool.submit(new Task(board.copy(), move, depth - 1)));
+        }
+
+        final Map<String, Long> result = new LinkedHashMap<>();
+        tasks.forEach((move, task) -> result.put(move, task.join()));
+        return result;
+    }
+
+    /**
+     * Run perft from the command line: {@code Perft <depth> [divide] [threads] [fen]}. Prints the node count, the
+     * time it took and the nodes per second, and whether the count matches the known count of the starting position.
+     */
+    public static void main(String[] args) {
+        if (args.length == 0) {
+            System.out.println("Usage: Perft <depth> [divide] [threads] [fen]");
+            return;
+        }
+
+        final int depth = Integer.parseInt(args[0]);
+        final boolean divide = args.length > 1 && args[1].equals("divide");
+        final int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+        final boolean startPosition = args.length <= 3;
+        final Board board = startPosition ? new Board() : Board.fromFen(String.join(" ", Arrays.copyOfRange(args, 3, args.length)));
+
+        final long start = System.nanoTime();
+        long nodes = 0L;
+
+        if (divide) {
+            final ForkJoinPool pool = new ForkJoinPool(threads);
+
+            try {
+                for (Map.Entry<String, Long> entry : divide(board, depth, pool).entrySet()) {
+                    System.out.println(entry.getKey() + ": " + entry.getValue());
+                    nodes += entry.getValue();
+                }
+            } finally {
+                pool.shutdown();
+            }
+        } else {
+            nodes = new Perft(board, depth).perft(depth);
+        }
+
+        final long nanos = Math.max(System.nanoTime() - start, 1L);
+        System.out.println();
+        System.out.printf("Nodes: %d%n", nodes);
+        System.out.printf("Time: %d ms%n", nanos / 1_000_000);
+        System.out.printf("NPS: %d%n", nodes * 1_000_000_000L / nanos);
+
+        if (startPosition && depth < START_POSITION.length) {
+            System.out.println(nodes == START_POSITION[depth] ? "OK" : "MISMATCH, expected " + START_POSITION[depth]);
+        }
+    }
+
+    private static final class Task extends RecursiveTask<Long> {
+
+        private final Board board;
+        private final int move;
+        private final int depth;
+
+        private Task(Board board, int move, int depth) {
+            this.board = board;
+            this.move = move;
+            this.depth = depth;
+        }
+
+        @Override
+        protected Long compute() {
+            board.makeMove(move);
+            return new Perft(board, depth).perft(depth);
+        }
+    }
+}
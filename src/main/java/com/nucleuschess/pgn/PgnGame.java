@@ -0,0 +1,78 @@
+package com.nucleuschess.pgn;
+
+import com.nucleuschess.board.Board;
+
+import java.util.Collections;
+import java.util.Map;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * A game read from PGN: its tag pairs, its moves and its result
+ */
+public final class PgnGame {
+
+    private final Map<String, String> tags;
+    private final int[] moves;
+    private final String result;
+
+    public PgnGame(Map<String, String> tags, int[] moves, String result) {
+        this.tags = tags;
+        this.moves = moves;
+        this.result = result;
+    }
+
+    /**
+     * Get the tag pairs in the order of the PGN, such as Event, White, Black and Result
+     */
+    public Map<String, String> getTags() {
+        return Collections.unmodifiableMap(tags);
+    }
+
+    public String getTag(String name) {
+        return tags.get(name);
+    }
+
+    /**
+     * Get the moves of the game
+     *
+     * @return Packed moves, see {@link com.nucleuschess.move.PackedMove}
+     */
+    public int[] getMoves() {
+        return moves.clone();
+    }
+
+    public int getMoveCount() {
+        return moves.length;
+    }
+
+    /**
+     * Get the result of the game
+     *
+     * @return {@code 1-0}, {@code 0-1}, {@code 1/2-1/2}, or {@code *} if the game has no result
+     */
+    public String getResult() {
+        return result;
+    }
+
+    /**
+     * Create a board with the position the game starts from, which is the starting position unless the game has a
+     * FEN tag
+     */
+    public Board createBoard() {
+        final String fen = tags.get("FEN");
+        return fen == null ? new Board() : Board.fromFen(fen);
+    }
+}
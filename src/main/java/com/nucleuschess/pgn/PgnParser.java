@@ -0,0 +1,214 @@
+package com.nucleuschess.pgn;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Parses the text of a single PGN game. Comments, variations, numeric annotation glyphs and move numbers are
+ * skipped; the moves of the main line are resolved with {@link San} on a board which follows the game.
+ */
+final class PgnParser {
+
+    private final MoveList moves;
+    private int[] played;
+
+    // games from the start position are played on this board and taken back afterwards, so its pieces are reused
+    private Board initial;
+
+    PgnParser() {
+        this.moves = new MoveList();
+        this.played = new int[256];
+    }
+
+    /**
+     * Parse a game
+     *
+     * @param text  Text which contains the game, with tag values in UTF-8 when it's read from bytes
+     * @param start Index of the first character of the game
+     * @param end   Index after the last character of the game
+     * @return The game
+     * @throws IllegalArgumentException If a move is not legal or the text is not valid PGN
+     */
+    PgnGame parse(CharSequence text, int start, int end) {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        Board board = null;
+        String result = "*";
+        int count = 0;
+        int i = start;
+
+        try {
+            while (i < end) {
+                final char c = text.charAt(i);
+
+                if (c <= ' ') {
+                    i++;
+                } else if (c == '[') {
+                    i = parseTag(text, i, end, tags);
+                } else if (c == '{') {
+                    i = skipTo(text, i, end, '}') + 1;
+                } else if (c == ';' || (c == '%' && (i == 0 || text.charAt(i - 1) == '\n'))) {
+                    i = skipTo(text, i, end, '\n');
+                } else if (c == '(') {
+                    i = skipVariation(text, i, end);
+                } else if (c == '$') {
+                    i = skipDigits(text, i + 1, end);
+                } else {
+                    int token = i;
+                    final int tokenEnd = skipToken(text, i, end);
+                    i = tokenEnd;
+
+                    if (isResult(text, token, tokenEnd)) {
+                        result = text.subSequence(token, tokenEnd).toString();
+                        break;
+                    }
+
+                    // move numbers, possibly written together with the move, such as 1. or 12...Nf6
+                    final int digits = skipDigits(text, token, tokenEnd);
+                    if (digits > token && digits < tokenEnd && text.charAt(digits) == '.') {
+                        token = digits;
+                        while (token < tokenEnd && text.charAt(token) == '.') {
+                            token++;
+                        }
+                    }
+                    if (token == tokenEnd) continue;
+
+                    if (board == null) {
+                        board = getBoard(tags);
+                    }
+
+                    final int move = San.parse(board, text, token, tokenEnd, moves);
+                    if (move == PackedMove.NONE) {
+                        throw new IllegalArgumentException("Illegal move " + text.subSequence(token, tokenEnd) + " after " + count + " moves");
+                    }
+                    board.makeMove(move);
+
+                    if (count == played.length) {
+                        played = Arrays.copyOf(played, count * 2);
+                    }
+                    played[count++] = move;
+                }
+            }
+        } finally {
+            if (board != null && board == initial) {
+                for (int j = 0; j < count; j++) {
+                    board.unmakeMove();
+                }
+            }
+        }
+        return new PgnGame(tags, Arrays.copyOf(played, count), result);
+    }
+
+    private Board getBoard(Map<String, String> tags) {
+        final String fen = tags.get("FEN");
+        if (fen != null) return Board.fromFen(fen);
+
+        if (initial == null) {
+            initial = new Board();
+        }
+        return initial;
+    }
+
+    /**
+     * Parse a tag pair such as {@code [White "Carlsen, Magnus"]}
+     *
+     * @return Index after the tag pair
+     */
+    private static int parseTag(CharSequence text, int i, int end, Map<String, String> tags) {
+        final int nameStart = i + 1;
+        final int nameEnd = skipToken(text, nameStart, end);
+        final int quote = skipTo(text, nameEnd, end, '"');
+
+        if (quote >= end || nameEnd == nameStart) {
+            throw new IllegalArgumentException("Invalid tag pair at " + i);
+        }
+
+        // the value ends at the first quote which is not escaped
+        final byte[] value = new byte[end - quote];
+        boolean decode = true;
+        int length = 0;
+        int j = quote + 1;
+
+        for (; j < end && text.charAt(j) != '"'; j++) {
+            char c = text.charAt(j);
+
+            if (c == '\\' && j + 1 < end) {
+                c = text.charAt(++j);
+            }
+            decode &= c <= 0xFF;
+            value[length++] = (byte) c;
+        }
+
+        final String name = text.subSequence(nameStart, nameEnd).toString();
+        tags.put(name, decode ? new String(value, 0, length, StandardCharsets.UTF_8) : text.subSequence(quote + 1, j).toString());
+        return skipTo(text, j, end, ']') + 1;
+    }
+
+    private static int skipVariation(CharSequence text, int i, int end) {
+        int depth = 0;
+
+        for (; i < end; i++) {
+            final char c = text.charAt(i);
+
+            if (c == '{') {
+                i = skipTo(text, i, end, '}');
+            } else if (c == '(') {
+                depth++;
+            } else if (c == ')' && --depth == 0) {
+                return i + 1;
+            }
+        }
+        return end;
+    }
+
+    private static int skipTo(CharSequence text, int i, int end, char c) {
+        while (i < end && text.charAt(i) != c) {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipDigits(CharSequence text, int i, int end) {
+        while (i < end && text.charAt(i) >= '0' && text.charAt(i) <= '9') {
+            i++;
+        }
+        return i;
+    }
+
+    private static int skipToken(CharSequence text, int i, int end) {
+        while (i < end) {
+            final char c = text.charAt(i);
+            if (c <= ' ' || c == '{' || c == '}' || c == '(' || c == ')' || c == '[' || c == ']' || c == ';' || c == '$' || c == '"') break;
+            i++;
+        }
+        return i;
+    }
+
+    private static boolean isResult(CharSequence text, int start, int end) {
+        final int length = end - start;
+        final char first = text.charAt(start);
+
+        if (length == 1) return first == '*';
+        if (length == 3) return (first == '1' || first == '0') && text.charAt(start + 1) == '-' && text.charAt(start + 2) == (first == '1' ? '0' : '1');
+        return length == 7 && first == '1' && text.charAt(start + 1) == '/' && text.charAt(start + 3) == '-';
+    }
+}
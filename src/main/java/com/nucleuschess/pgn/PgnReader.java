@@ -0,0 +1,271 @@
+package com.nucleuschess.pgn;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Reads the games of a PGN file of any size. The file is memory-mapped one segment at a time, every segment is
+ * split into games at the tag pairs which follow movetext, and the games of a segment are parsed in parallel on a
+ * fork-join pool. Only the games of one segment are held in memory.
+ * <p>
+ * Games which can't be parsed, such as games with illegal moves, are skipped and counted as errors.
+ */
+public final class PgnReader implements Closeable {
+
+    // bytes which are mapped at a time, unless a single game is larger
+    private static final int SEGMENT_SIZE = 64 << 20;
+
+    // games parsed by one task
+    private static final int GAMES_PER_TASK = 32;
+
+    private final FileChannel channel;
+    private final ForkJoinPool pool;
+    private final long size;
+    private final int segmentSize;
+
+    private long position;
+    private long games;
+    private final LongAdder errors;
+    private long start;
+    private long end;
+
+    public PgnReader(Path path, ForkJoinPool pool) throws IOException {
+        this(path, pool, SEGMENT_SIZE);
+    }
+
+    PgnReader(Path path, ForkJoinPool pool, int segmentSize) throws IOException {
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.pool = pool;
+        this.size = channel.size();
+        this.segmentSize = segmentSize;
+        this.errors = new LongAdder();
+    }
+
+    /**
+     * Get the games of the file, in the order of the file. The stream reads the file while it's consumed, and can
+     * only be consumed once.
+     *
+     * @return Stream of games
+     * @throws UncheckedIOException If the file can't be read while the stream is consumed
+     */
+    public Stream<PgnGame> games() {
+        final Iterator<List<PgnGame>> segments = new Iterator<List<PgnGame>>() {
+            @Override
+            public boolean hasNext() {
+                return position < size;
+            }
+
+            @Override
+            public List<PgnGame> next() {
+                if (!hasNext()) throw new NoSuchElementException();
+
+                try {
+                    return readSegment();
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        };
+
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(segments, Spliterator.ORDERED | Spliterator.NONNULL), false)
+                .flatMap(List::stream);
+    }
+
+    public long getGames() {
+        return games;
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    /**
+     * Get the number of bytes read so far
+     */
+    public long getBytes() {
+        return position;
+    }
+
+    public double getGamesPerSecond() {
+        return games * 1e9 / Math.max(end - start, 1L);
+    }
+
+    public double getMegabytesPerSecond() {
+        return position * 1e9 / (1 << 20) / Math.max(end - start, 1L);
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * Read games from the file and print the throughput: {@code PgnReader <file> [threads]}
+     */
+    public static void main(String[] args) throws IOException {
+        if (args.length == 0) {
+            System.out.println("Usage: PgnReader <file> [threads]");
+            return;
+        }
+
+        final int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors();
+        final ForkJoinPool pool = new ForkJoinPool(threads);
+
+        try (PgnReader reader = new PgnReader(Paths.get(args[0]), pool)) {
+            final long moves = reader.games().mapToLong(PgnGame::getMoveCount).sum();
+
+            System.out.printf("Games: %d (%d skipped)%n", reader.getGames(), reader.getErrors());
+            System.out.printf("Moves: %d%n", moves);
+            System.out.printf("Games/s: %.0f%n", reader.getGamesPerSecond());
+            System.out.printf("MB/s: %.1f%n", reader.getMegabytesPerSecond());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    private List<PgnGame> readSegment() throws IOException {
+        if (start == 0) {
+            start = System.nanoTime();
+        }
+
+        long length = Math.min(segmentSize, size - position);
+
+        while (true) {
+            final ByteSequence text = new ByteSequence(channel.map(FileChannel.MapMode.READ_ONLY, position, length));
+            final boolean last = position + length == size;
+            final int[] starts = findGames(text, last);
+
+            // the last game of a segment may continue in the next one, unless it's the end of the file
+            if (starts.length > 1 || last) {
+                final List<PgnGame> result = pool.invoke(new ParseTask(text, starts, 0, starts.length - 1));
+
+                position += starts[starts.length - 1];
+                games += result.size();
+                end = System.nanoTime();
+                return result;
+            }
+
+            if (length == Integer.MAX_VALUE) {
+                throw new IOException("Game at " + position + " is larger than 2 GB");
+            }
+            length = Math.min(Math.min(length * 2, size - position), Integer.MAX_VALUE);
+        }
+    }
+
+    /**
+     * Find where the games of a segment start: at the first tag pair after movetext
+     *
+     * @return Start of every game, followed by the end of the last complete game
+     */
+    private static int[] findGames(ByteSequence text, boolean last) {
+        final int length = text.length();
+        int[] starts = new int[64];
+        int count = 1;
+        boolean moves = false;
+
+        for (int line = 0; line < length; ) {
+            final char c = text.charAt(line);
+
+            if (c == '[') {
+                if (moves) {
+                    if (count == starts.length) {
+                        starts = Arrays.copyOf(starts, count * 2);
+                    }
+                    starts[count++] = line;
+                    moves = false;
+                }
+            } else if (c > ' ') {
+                moves = true;
+            }
+
+            while (line < length && text.charAt(line) != '\n') {
+                line++;
+            }
+            line++;
+        }
+
+        if (last) {
+            if (count == starts.length) {
+                starts = Arrays.copyOf(starts, count + 1);
+            }
+            starts[count++] = length;
+        }
+        return Arrays.copyOf(starts, count);
+    }
+
+    private final class ParseTask extends RecursiveTask<List<PgnGame>> {
+
+        private final ByteSequence text;
+        private final int[] starts;
+        private final int from;
+        private final int to;
+
+        private ParseTask(ByteSequence text, int[] starts, int from, int to) {
+            this.text = text;
+            this.starts = starts;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected List<PgnGame> compute() {
+            if (to - from > GAMES_PER_TASK) {
+                final int middle = (from + to) >>> 1;
+                final ParseTask right = new ParseTask(text, starts, middle, to);
+                right.fork();
+
+                final List<PgnGame> games = new ParseTask(text, starts, from, middle).compute();
+                games.addAll(right.join());
+                return games;
+            }
+
+            final PgnParser parser = new PgnParser();
+            final List<PgnGame> games = new ArrayList<>(to - from);
+
+            for (int i = from; i < to; i++) {
+                try {
+                    final PgnGame game = parser.parse(text, starts[i], starts[i + 1]);
+
+                    // whitespace after the last game
+                    if (!game.getTags().isEmpty() || game.getMoveCount() > 0) {
+                        games.add(game);
+                    }
+                } catch (IllegalArgumentException e) {
+                    errors.increment();
+                }
+            }
+            return games;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.nucleuschess.pgn;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.piece.PieceType;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Standard Algebraic Notation (SAN), the notation of moves in PGN, such as {@code Nbd7}, {@code exd5},
+ * {@code e8=Q+} or {@code O-O}. A move is resolved by matching it against the legal moves of the board, so the
+ * notation only has to be as precise as the position requires.
+ */
+public final class San {
+
+    private static final PieceType[] TYPES = PieceType.values();
+
+    private San() {
+    }
+
+    /**
+     * Find the legal move a move in SAN stands for
+     *
+     * @param board Position the move is played in
+     * @param san   Move, with or without check marks and annotations such as {@code +}, {@code #} or {@code !?}
+     * @return Packed move, or {@link PackedMove#NONE} if no legal move or more than one matches
+     */
+    public static int parse(Board board, CharSequence san) {
+        return parse(board, san, 0, san.length(), new MoveList());
+    }
+
+    /**
+     * Find the legal move a part of a text stands for, without copying it
+     *
+     * @param board Position the move is played in
+     * @param text  Text which contains the move
+     * @param start Index of the first character of the move
+     * @param end   Index after the last character of the move
+     * @param moves List the legal moves are generated into, which can be reused
+     * @return Packed move, or {@link PackedMove#NONE} if no legal move or more than one matches
+     */
+    public static int parse(Board board, CharSequence text, int start, int end, MoveList moves) {
+        while (end > start && isSuffix(text.charAt(end - 1))) {
+            end--;
+        }
+        if (end - start < 2) return PackedMove.NONE;
+
+        moves.clear();
+
+        final char first = text.charAt(start);
+        if (first == 'O' || first == '0') {
+            return parseCastling(board, text, start, end, moves);
+        }
+
+        PieceType piece = PieceType.PAWN;
+        final int type = "NBRQK".indexOf(first);
+        if (type != -1) {
+            piece = TYPES[type + 1];
+            start++;
+        }
+
+        PieceType promotion = null;
+        final int promoted = "NBRQ".indexOf(text.charAt(end - 1));
+        if (piece == PieceType.PAWN && promoted != -1) {
+            promotion = TYPES[promoted + 1];
+            end--;
+            if (end > start && text.charAt(end - 1) == '=') end--;
+        }
+
+        if (end - start < 2) return PackedMove.NONE;
+        final int to = getSquare(text.charAt(end - 2), text.charAt(end - 1));
+        if (to == -1) return PackedMove.NONE;
+
+        // what is left is the square, file or rank the piece moves from, and whether it captures
+        int fromFile = -1;
+        int fromRank = -1;
+        for (int i = start; i < end - 2; i++) {
+            final char c = text.charAt(i);
+
+            if (c >= 'a' && c <= 'h') {
+                fromFile = c - 'a';
+            } else if (c >= '1' && c <= '8') {
+                fromRank = c - '1';
+            } else if (c != 'x' && c != ':' && c != '-') {
+                return PackedMove.NONE;
+            }
+        }
+
+        // only the moves to the square are generated, which includes en passant to the square behind it
+        long mask = 1L << to;
+        if (piece == PieceType.PAWN && to >= 16 && to < 48) {
+            mask |= 1L << (board.getSideToMove() == Color.WHITE ? to - 8 : to + 8);
+        }
+        board.generateLegalMoves(moves, mask);
+
+        int found = PackedMove.NONE;
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+            final int from = PackedMove.getFrom(move);
+
+            if (PackedMove.getPiece(move) == piece && PackedMove.getTo(move) == to && PackedMove.getPromotion(move) == promotion
+                    && (fromFile == -1 || (from & 7) == fromFile) && (fromRank == -1 || from >>> 3 == fromRank)) {
+                if (found != PackedMove.NONE) return PackedMove.NONE;
+                found = move;
+            }
+        }
+        return found;
+    }
+
+    private static int parseCastling(Board board, CharSequence text, int start, int end, MoveList moves) {
+        // O-O-O is the only castling notation with five characters
+        final int file = end - start == 5 ? 2 : end - start == 3 ? 6 : -1;
+        if (file == -1) return PackedMove.NONE;
+
+        board.generateLegalMoves(moves, 1L << file | 1L << (56 + file));
+
+        for (int i = 0; i < moves.size(); i++) {
+            final int move = moves.get(i);
+
+            if (PackedMove.isCastling(move) && (PackedMove.getTo(move) & 7) == file) {
+                return move;
+            }
+        }
+        return PackedMove.NONE;
+    }
+
+    private static int getSquare(char file, char rank) {
+        if (file < 'a' || file > 'h' || rank < '1' || rank > '8') return -1;
+        return (rank - '1') << 3 | (file - 'a');
+    }
+
+    private static boolean isSuffix(char c) {
+        return c == '+' || c == '#' || c == '!' || c == '?';
+    }
+}
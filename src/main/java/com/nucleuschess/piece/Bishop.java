@@ -26,5 +26,10 @@ public final class Bishop extends Piece {
         return "B";
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.BISHOP;
+    }
+
 
 }
@@ -25,4 +25,9 @@ public final class King extends Piece {
     public String getCode() {
         return "K";
     }
+
+    @Override
+    public PieceType getType() {
+        return PieceType.KING;
+    }
 }
@@ -26,4 +26,9 @@ public final class Knight extends Piece {
         return "N";
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.KNIGHT;
+    }
+
 }
@@ -26,4 +26,9 @@ public final class Pawn extends Piece {
         return "P";
     }
 
+    @Override
+    public PieceType getType() {
+        return PieceType.PAWN;
+    }
+
 }
@@ -35,6 +35,8 @@ public abstract class Piece {
 
     public abstract String getCode();
 
+    public abstract PieceType getType();
+
     public Color getColor() {
         return color;
     }
@@ -50,7 +52,7 @@ public abstract class Piece {
     @SuppressWarnings("DeprecatedIsStillUsed")
     @Deprecated
     public void setHasMoved(boolean moved) {
-        if (hasMoved) throw new IllegalStateException("Changing state when already true");
+        if (hasMoved && moved) throw new IllegalStateException("Changing state when already true");
 
         this.hasMoved = moved;
     }
@@ -25,4 +25,9 @@ public final class Queen extends Piece {
     public String getCode() {
         return "Q";
     }
+
+    @Override
+    public PieceType getType() {
+        return PieceType.QUEEN;
+    }
 }
@@ -29,4 +29,9 @@ public final class Rook extends Piece {
     public String getCode() {
         return "R";
     }
+
+    @Override
+    public PieceType getType() {
+        return PieceType.ROOK;
+    }
 }
\ No newline at end of file
@@ -0,0 +1,411 @@
+package com.nucleuschess.uci;
+
+import com.nucleuschess.Color;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.engine.ParallelSearch;
+import com.nucleuschess.engine.PawnHashTable;
+import com.nucleuschess.engine.Search;
+import com.nucleuschess.engine.SearchLimits;
+import com.nucleuschess.engine.SearchResult;
+import com.nucleuschess.engine.TimeManager;
+import com.nucleuschess.engine.TranspositionTable;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.PrintStream;
+import java.util.Arrays;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+/**
+ * Command loop of the Universal Chess Interface, which lets the engine play in GUIs and tournament managers over
+ * standard input and output, without the WebSocket server of {@link com.nucleuschess.Core}.
+ * <p>
+ * Searches run on a thread of their own, so {@code stop} and {@code ponderhit} are handled while searching. In
+ * infinite and ponder mode the best move is held back until one of them arrives, as the protocol requires.
+ */
+public final class Uci {
+
+    private static final String NAME = "NucleusChess";
+    private static final String AUTHOR = "NucleusChess";
+
+    private static final int DEFAULT_HASH = 16;
+    private static final int MAX_HASH = 8192;
+    private static final int MAX_THREADS = 256;
+
+    // size of the pawn hash table of every thread, in MB
+    private static final int DEFAULT_PAWN_HASH = PawnHashTable.DEFAULT_SIZE / 1024;
+    private static final int MAX_PAWN_HASH = 256;
+
+    private final BufferedReader in;
+    private final PrintStream out;
+
+    private final TranspositionTable table;
+    private final ScheduledExecutorService timer;
+    private ParallelSearch search;
+    private int pawnHash;
+    private Board board;
+
+    // the running search, and whether its best move is held back until stop or ponderhit
+    private final Object lock;
+    private Thread thread;
+    private boolean waiting;
+    private boolean infinite;
+    private long ponderTime;
+    private ScheduledFuture<?> ponderStop;
+
+    public Uci(BufferedReader in, PrintStream out) {
+        this.in = in;
+        this.out = out;
+        this.table = new TranspositionTable(DEFAULT_HASH);
+        this.timer = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "uci-timer");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.pawnHash = DEFAULT_PAWN_HASH;
+        this.search = new ParallelSearch(1, table, pawnHash * 1024);
+        this.board = new Board();
+        this.lock = new Object();
+
+        search.setListener(this::info);
+    }
+
+    public static void main(String[] args) throws IOException {
+        new Uci(new BufferedReader(new InputStreamReader(System.in)), System.out).run();
+    }
+
+    /**
+     * Read and handle commands until {@code quit} or the end of the input. A search which is still running at the
+     * end of the input is finished first, unless it waits for {@code stop} or {@code ponderhit}.
+     */
+    public void run() throws IOException {
+        String line;
+
+        while ((line = in.readLine()) != null) {
+            if (!handle(line.trim())) {
+                stopSearch();
+                shutdown();
+                return;
+            }
+        }
+
+        final boolean waiting;
+        synchronized (lock) {
+            waiting = this.waiting;
+        }
+
+        if (waiting) {
+            stopSearch();
+        } else if (thread != null) {
+            join(0);
+        }
+        shutdown();
+    }
+
+    /**
+     * Handle a single command
+     *
+     * @param line Command with its arguments
+     * @return Whether the loop should go on
+     */
+    boolean handle(String line) {
+        final String[] tokens = line.split("\\s+");
+
+        try {
+            switch (tokens[0]) {
+                case "uci":
+                    out.println("id name " + NAME);
+                    out.println("id author " + AUTHOR);
+                    out.println("option name Hash type spin default " + DEFAULT_HASH + " min 1 max " + MAX_HASH);
+                    out.println("option name Threads type spin default 1 min 1 max " + MAX_THREADS);
+                    out.println("option name PawnHash type spin default " + DEFAULT_PAWN_HASH + " min 1 max " + MAX_PAWN_HASH);
+                    out.println("option name Ponder type check default false");
+                    out.println("uciok");
+                    break;
+                case "isready":
+                    out.println("readyok");
+                    break;
+                case "setoption":
+                    stopSearch();
+                    setOption(tokens);
+                    break;
+                case "ucinewgame":
+                    stopSearch();
+                    table.clear();
+                    board = new Board();
+                    break;
+                case "position":
+                    stopSearch();
+                    position(tokens);
+                    break;
+                case "go":
+                    stopSearch();
+                    go(tokens);
+                    break;
+                case "stop":
+                    stopSearch();
+                    break;
+                case "ponderhit":
+                    ponderHit();
+                    break;
+                case "quit":
+                    return false;
+                default:
+                    // unknown commands, and debug and register, are ignored
+                    break;
+            }
+        } catch (IllegalArgumentException | IndexOutOfBoundsException e) {
+            out.println("info string Invalid command " + line + ": " + e.getMessage());
+        }
+        return true;
+    }
+
+    private void setOption(String[] tokens) {
+        final String name = getArgument(tokens, "name", "value");
+        final String value = getArgument(tokens, "value", null);
+
+        if (name.equalsIgnoreCase("Hash")) {
+            table.resize(getNumber(value, 1, MAX_HASH));
+        } else if (name.equalsIgnoreCase("Threads")) {
+            createSearch(getNumber(value, 1, MAX_THREADS), pawnHash);
+        } else if (name.equalsIgnoreCase("PawnHash")) {
+            createSearch(search.getThreads(), getNumber(value, 1, MAX_PAWN_HASH));
+        } else if (!name.equalsIgnoreCase("Ponder")) {
+            throw new IllegalArgumentException("unknown option");
+        }
+    }
+
+    private void createSearch(int threads, int pawnHash) {
+        search.shutdown();
+        search = new ParallelSearch(threads, table, pawnHash * 1024);
+        search.setListener(this::info);
+        this.pawnHash = pawnHash;
+    }
+
+    private void position(String[] tokens) {
+        final int moves = Arrays.asList(tokens).indexOf("moves");
+        final int end = moves == -1 ? tokens.length : moves;
+        final Board position;
+
+        // the moves are played on a new board, so an invalid command leaves the previous position
+        if (tokens[1].equals("startpos")) {
+            position = new Board();
+        } else if (tokens[1].equals("fen")) {
+            position = Board.fromFen(String.join(" ", Arrays.copyOfRange(tokens, 2, end)));
+        } else {
+            throw new IllegalArgumentException("expected startpos or fen");
+        }
+
+        for (int i = end + 1; moves != -1 && i < tokens.length; i++) {
+            final int move = position.parseMove(tokens[i]);
+
+            if (move == PackedMove.NONE) {
+                throw new IllegalArgumentException("illegal move " + tokens[i]);
+            }
+            position.makeMove(move);
+        }
+        board = position;
+    }
+
+    private void go(String[] tokens) {
+        final SearchLimits limits = new SearchLimits();
+        final boolean white = board.getSideToMove() == Color.WHITE;
+        boolean infinite = false;
+        boolean ponder = false;
+
+        for (int i = 1; i < tokens.length; i++) {
+            switch (tokens[i]) {
+                case "depth":
+                    limits.setDepth(Math.min(getNumber(tokens[++i], 1, Integer.MAX_VALUE), Search.MAX_PLY - 1));
+                    break;
+                case "nodes":
+                    limits.setNodes(Long.parseLong(tokens[++i]));
+                    break;
+                case "movetime":
+                    limits.setTime(Long.parseLong(tokens[++i]));
+                    break;
+                case "wtime":
+                case "btime":
+                    if (white == tokens[i].equals("wtime")) limits.setTimeLeft(Long.parseLong(tokens[i + 1]));
+                    i++;
+                    break;
+                case "winc":
+                case "binc":
+                    if (white == tokens[i].equals("winc")) limits.setIncrement(Long.parseLong(tokens[i + 1]));
+                    i++;
+                    break;
+                case "movestogo":
+                    limits.setMovesToGo(getNumber(tokens[++i], 1, Integer.MAX_VALUE));
+                    break;
+                case "infinite":
+                    infinite = true;
+                    break;
+                case "ponder":
+                    ponder = true;
+                    break;
+                default:
+                    // searchmoves and mate are not supported, and ignored
+                    break;
+            }
+        }
+
+        // a ponder search only gets its time once the opponent played the expected move
+        long ponderTime = 0L;
+        if (ponder) {
+            final TimeManager time = new TimeManager(limits);
+            ponderTime = time.getSoftLimit() > 0 ? time.getSoftLimit() : time.getHardLimit();
+            limits.setTime(0L).setTimeLeft(0L);
+        }
+
+        synchronized (lock) {
+            this.waiting = infinite || ponder;
+            this.infinite = infinite;
+            this.ponderTime = ponderTime;
+        }
+
+        final Board position = board;
+        thread = new Thread(() -> bestMove(position, search.search(position, limits)), "uci-search");
+        thread.start();
+    }
+
+    private void ponderHit() {
+        synchronized (lock) {
+            waiting = infinite;
+            lock.notifyAll();
+
+            if (ponderTime > 0) {
+                ponderStop = timer.schedule(search::stop, ponderTime, TimeUnit.MILLISECONDS);
+            }
+        }
+    }
+
+    /**
+     * Stop the running search, which prints its best move
+     */
+    private void stopSearch() {
+        synchronized (lock) {
+            waiting = false;
+            lock.notifyAll();
+
+            if (ponderStop != null) {
+                ponderStop.cancel(false);
+                ponderStop = null;
+            }
+        }
+
+        // the search may not have started yet when it's stopped the first time
+        while (thread != null && thread.isAlive()) {
+            search.stop();
+            join(10);
+        }
+        thread = null;
+    }
+
+    private void join(long millis) {
+        try {
+            thread.join(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void shutdown() {
+        search.shutdown();
+        timer.shutdownNow();
+    }
+
+    private void bestMove(Board position, SearchResult result) {
+        synchronized (lock) {
+            while (waiting) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    break;
+                }
+            }
+        }
+
+        final int[] pv = result == null ? new int[0] : result.getPv();
+        if (pv.length == 0) {
+            // a search always finishes a root move, this only guards against sending no move while there is one
+            final MoveList moves = new MoveList();
+            position.generateLegalMoves(moves);
+            out.println("bestmove " + (moves.size() == 0 ? "0000" : PackedMove.toString(moves.get(0))));
+        } else if (pv.length == 1) {
+            out.println("bestmove " + PackedMove.toString(pv[0]));
+        } else {
+            out.println("bestmove " + PackedMove.toString(pv[0]) + " ponder " + PackedMove.toString(pv[1]));
+        }
+    }
+
+    private void info(SearchResult result) {
+        final StringBuilder line = new StringBuilder("info depth ").append(result.getDepth());
+        final int score = result.getScore();
+
+        // mate scores are given in moves instead of plies
+        if (result.isMate()) {
+            line.append(" score mate ").append(score > 0 ? (Search.MATE - score + 1) / 2 : -(Search.MATE + score) / 2);
+        } else {
+            line.append(" score cp ").append(score);
+        }
+
+        line.append(" nodes ").append(result.getNodes())
+                .append(" nps ").append(result.getNps())
+                .append(" time ").append(result.getTime())
+                .append(" hashfull ").append(table.getHashfull())
+                .append(" pv");
+
+        for (int move : result.getPv()) {
+            line.append(' ').append(PackedMove.toString(move));
+        }
+        out.println(line);
+    }
+
+    /**
+     * Get the words of a command after a keyword, up to another keyword or the end
+     */
+    private static String getArgument(String[] tokens, String from, String to) {
+        final StringBuilder argument = new StringBuilder();
+        boolean found = false;
+
+        for (String token : tokens) {
+            if (found && token.equals(to)) break;
+
+            if (found) {
+                argument.append(argument.length() == 0 ? "" : " ").append(token);
+            }
+            found |= token.equals(from);
+        }
+        return argument.toString();
+    }
+
+    private static int getNumber(String value, int min, int max) {
+        final int number = Integer.parseInt(value);
+
+        if (number < min || number > max) {
+            throw new IllegalArgumentException(value + " is not between " + min + " and " + max);
+        }
+        return number;
+    }
+}
@@ -1,13 +1,22 @@
 package com.nucleuschess;
 
+import com.nucleuschess.board.AttackTables;
+import com.nucleuschess.board.Bitboards;
 import com.nucleuschess.board.Board;
+import com.nucleuschess.board.CastlingRights;
+import com.nucleuschess.board.MagicBitboards;
+import com.nucleuschess.board.PieceSquareTables;
 import com.nucleuschess.board.Position;
 import com.nucleuschess.move.Move;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
 import com.nucleuschess.piece.*;
 import com.nucleuschess.util.SimpleDisplayNameGenerator;
 import org.junit.jupiter.api.*;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Random;
 
 import static com.nucleuschess.Color.BLACK;
@@ -89,34 +98,47 @@ class BoardTests {
 
     @Test
     void checkFile() {
-        final Position[] positions = Position.valuesOf('d');
+        final List<Position> positions = Position.valuesOf('d');
 
         Assertions.assertNotNull(positions);
-        Assertions.assertEquals(8, positions.length);
+        Assertions.assertEquals(8, positions.size());
 
         final String expected = "QPOOOOPQ";
 
         final StringBuilder result = new StringBuilder();
-        Arrays.stream(positions).forEach(p -> result.append(board.isEmpty(p) ? "O" : board.getPiece(p).getCode()));
+        positions.forEach(p -> result.append(board.isEmpty(p) ? "O" : board.getPiece(p).getCode()));
 
         Assertions.assertEquals(expected, result.toString());
     }
 
     @Test
     void checkRank() {
-        final Position[] positions = Position.valuesOf(1);
+        final List<Position> positions = Position.valuesOf(1);
 
         Assertions.assertNotNull(positions);
-        Assertions.assertEquals(positions.length, 8);
+        Assertions.assertEquals(positions.size(), 8);
 
         final String expected = "RNBQKBNR";
 
         final StringBuilder result = new StringBuilder();
-        Arrays.stream(positions).forEach(p -> result.append(board.isEmpty(p) ? "O" : board.getPiece(p).getCode()));
+        positions.forEach(p -> result.append(board.isEmpty(p) ? "O" : board.getPiece(p).getCode()));
 
         Assertions.assertEquals(expected, result.toString());
     }
 
+    @Test
+    void checkPositionLookups() {
+        Assertions.assertEquals(Position.E4, Position.valueOf('e', 4));
+        Assertions.assertEquals(Position.H8, Position.valueOf(8, 8));
+        Assertions.assertEquals(Position.C7, Position.fromOrdinal(Position.C7.ordinal()));
+        Assertions.assertSame(Position.valuesOf(3), Position.valuesOf(3));
+        Assertions.assertEquals(0, Position.valuesOf(9).size());
+        Assertions.assertEquals(Position.C5, Position.valuesOf('c').get(4));
+        Assertions.assertThrows(UnsupportedOperationException.class, () -> Position.valuesOf(3).set(0, Position.H8));
+        Assertions.assertEquals(Position.A3, Position.valuesOf(3).get(0));
+        Assertions.assertThrows(NoSuchElementException.class, () -> Position.valueOf(0, 1));
+    }
+
     @Test
     void checkPartialFile() {
 
@@ -205,6 +227,310 @@ class BoardTests {
         Assertions.assertTrue(board.isInCheck(BLACK));
     }
 
+    @Test
+    void checkBitboards() {
+        Assertions.assertEquals(32, Long.bitCount(board.getOccupied()));
+        Assertions.assertEquals(Bitboards.RANK_2, board.getBitboard(PieceType.PAWN, WHITE));
+        Assertions.assertEquals(Bitboards.RANK_7, board.getBitboard(PieceType.PAWN, BLACK));
+
+        final Knight knight = board.getPiece(Position.G1);
+        board.move(knight, Position.F3);
+
+        Assertions.assertTrue(board.isEmpty(Position.G1));
+        Assertions.assertEquals(Position.F3, board.getPosition(knight));
+        Assertions.assertEquals(Bitboards.of(Position.B1) | Bitboards.of(Position.F3), board.getBitboard(PieceType.KNIGHT, WHITE));
+        Assertions.assertEquals(16, Long.bitCount(board.getOccupied(WHITE)));
+    }
+
+    @Test
+    void checkPieceIndex() {
+        final King king = board.getPiece(Position.E8);
+        Assertions.assertEquals(Position.E8, board.getKing(BLACK));
+
+        // placing a piece which is already on the board moves it
+        board.setPiece(king, Position.E6);
+        Assertions.assertTrue(board.isEmpty(Position.E8));
+        Assertions.assertEquals(Position.E6, board.getPosition(king));
+        Assertions.assertEquals(Position.E6, board.getKing(BLACK));
+
+        board.setEmpty(Position.E6);
+        Assertions.assertThrows(IllegalStateException.class, () -> board.getKing(BLACK));
+    }
+
+    @Test
+    void testMakeAndUnmakeMove() {
+        final long occupied = board.getOccupied();
+        final Pawn e2 = board.getPiece(Position.E2);
+        final String[][] moves = {
+                {"E2", "E4"}, {"A7", "A6"}, {"E4", "E5"}, {"D7", "D5"}, {"E5", "D6"},
+                {"A6", "A5"}, {"G1", "F3"}, {"A5", "A4"}, {"F1", "E2"}, {"A4", "A3"}, {"E1", "G1"}
+        };
+
+        for (String[] m : moves) {
+            final Position from = Position.valueOf(m[0]);
+            board.makeMove(new Move(board.getMoveCounter(), board.getPiece(from), from, Position.valueOf(m[1]), false));
+        }
+
+        Assertions.assertTrue(board.isEmpty(Position.D5), "The pawn on D5 should be captured en passant");
+        Assertions.assertEquals("K", board.getPiece(Position.G1).getCode());
+        Assertions.assertEquals("R", board.getPiece(Position.F1).getCode());
+        Assertions.assertEquals(BLACK, board.getSideToMove());
+        Assertions.assertEquals(6, board.getMoveCounter());
+        Assertions.assertEquals(0, board.getCastlingRights() & (CastlingRights.WHITE_KINGSIDE | CastlingRights.WHITE_QUEENSIDE));
+
+        for (int i = 0; i < moves.length; i++) {
+            board.unmakeMove();
+        }
+
+        Assertions.assertEquals(occupied, board.getOccupied());
+        Assertions.assertEquals(Bitboards.RANK_2, board.getBitboard(PieceType.PAWN, WHITE));
+        Assertions.assertSame(e2, board.getPiece(Position.E2));
+        Assertions.assertFalse(e2.hasMoved());
+        Assertions.assertEquals(WHITE, board.getSideToMove());
+        Assertions.assertEquals(1, board.getMoveCounter());
+        Assertions.assertEquals(CastlingRights.ALL, board.getCastlingRights());
+        Assertions.assertThrows(IllegalStateException.class, board::unmakeMove);
+    }
+
+    @Test
+    void testHash() {
+        final long start = board.hash();
+        final String[][] moves = {{"G1", "F3"}, {"G8", "F6"}, {"F3", "G1"}, {"F6", "G8"}};
+
+        for (int i = 0; i < moves.length; i++) {
+            final Position from = Position.valueOf(moves[i][0]);
+            board.makeMove(new Move(board.getMoveCounter(), board.getPiece(from), from, Position.valueOf(moves[i][1]), false));
+
+            if (i < moves.length - 1) {
+                Assertions.assertNotEquals(start, board.hash());
+            }
+        }
+
+        // the same position reached through moves, and after taking the moves back
+        Assertions.assertEquals(start, new Board().hash());
+        Assertions.assertEquals(start, board.hash());
+        board.unmakeMove();
+        board.unmakeMove();
+        Assertions.assertNotEquals(start, board.hash());
+        board.unmakeMove();
+        board.unmakeMove();
+        Assertions.assertEquals(start, board.hash());
+
+        board.setEmpty(Position.H1);
+        Assertions.assertNotEquals(start, board.hash());
+    }
+
+    @Test
+    void testPromotion() {
+        final Pawn pawn = board.setPiece(new Pawn(WHITE), Position.G7);
+        final Rook rook = board.getPiece(Position.H8);
+
+        board.makeMove(new Move(1, pawn, Position.G7, Position.H8, true, PieceType.KNIGHT));
+        final Piece knight = board.getPiece(Position.H8);
+        Assertions.assertEquals("N", knight.getCode());
+        Assertions.assertEquals(WHITE, knight.getColor());
+        Assertions.assertEquals(0, board.getCastlingRights() & CastlingRights.BLACK_KINGSIDE);
+
+        board.unmakeMove();
+        Assertions.assertSame(pawn, board.getPiece(Position.G7));
+        Assertions.assertSame(rook, board.getPiece(Position.H8));
+
+        // the knight taken off the board is reused by the next promotion to a knight
+        board.makeMove(new Move(1, pawn, Position.G7, Position.H8, true, PieceType.KNIGHT));
+        Assertions.assertSame(knight, board.getPiece(Position.H8));
+        board.unmakeMove();
+    }
+
+    @Test
+    void testGenerateMoves() {
+        final MoveList moves = new MoveList();
+        final long start = board.hash();
+
+        board.generateMoves(moves);
+        Assertions.assertEquals(20, moves.size());
+
+        for (int i = 0; i < moves.size(); i++) {
+            board.makeMove(moves.get(i));
+            Assertions.assertEquals(BLACK, board.getSideToMove());
+            board.unmakeMove();
+            Assertions.assertEquals(start, board.hash());
+        }
+
+        final int move = PackedMove.of(Position.E2.ordinal(), Position.E4.ordinal(), PieceType.PAWN, WHITE, null, null, PackedMove.DOUBLE_PUSH);
+        Assertions.assertTrue(moves.contains(move));
+        Assertions.assertEquals("e2e4", PackedMove.toString(move));
+        Assertions.assertEquals(move, board.parseMove("e2e4"));
+        Assertions.assertEquals(PackedMove.NONE, board.parseMove("e2e5"));
+
+        board.makeMove(move);
+        moves.clear();
+        board.generateMoves(moves);
+        Assertions.assertEquals(20, moves.size());
+        Assertions.assertEquals(Position.E3, board.getEnPassant());
+    }
+
+    @Test
+    void testGenerateLegalMoves() {
+        final Random seeded = new Random(9);
+        final MoveList pseudoLegal = new MoveList();
+        final MoveList legal = new MoveList();
+
+        // the legal moves are exactly the pseudo-legal moves which don't leave the king in check
+        for (int ply = 0; ply < 200; ply++) {
+            pseudoLegal.clear();
+            legal.clear();
+            board.generateMoves(pseudoLegal);
+            board.generateLegalMoves(legal);
+
+            int count = 0;
+            for (int i = 0; i < pseudoLegal.size(); i++) {
+                final int move = pseudoLegal.get(i);
+                final Color color = board.getSideToMove();
+
+                board.makeMove(move);
+                if (!board.isInCheck(color)) {
+                    Assertions.assertTrue(legal.contains(move), PackedMove.toString(move));
+                    count++;
+                }
+                board.unmakeMove();
+            }
+            Assertions.assertEquals(count, legal.size());
+
+            if (legal.isEmpty() || board.getHalfMoveClock() >= 100) break;
+            board.makeMove(legal.get(seeded.nextInt(legal.size())));
+        }
+
+        final Board pinned = new Board();
+        pinned.setEmpty(Position.E2);
+        pinned.setEmpty(Position.D7);
+        pinned.setPiece(new Queen(BLACK), Position.B4);
+        Assertions.assertEquals(Bitboards.of(Position.D2), pinned.getPinned(WHITE));
+
+        final Pawn pawn = pinned.getPiece(Position.D2);
+        Assertions.assertFalse(pinned.check(pawn, new Move(1, pawn, Position.D2, Position.D3, false)));
+    }
+
+    @Test
+    void testNullMoveAndRepetition() {
+        final long start = board.hash();
+
+        board.makeNullMove();
+        Assertions.assertEquals(BLACK, board.getSideToMove());
+        Assertions.assertNotEquals(start, board.hash());
+        board.unmakeMove();
+        Assertions.assertEquals(start, board.hash());
+
+        final String[][] moves = {{"G1", "F3"}, {"G8", "F6"}, {"F3", "G1"}, {"F6", "G8"}};
+        for (String[] move : moves) {
+            Assertions.assertFalse(board.isRepetition());
+
+            final Position from = Position.valueOf(move[0]);
+            board.makeMove(new Move(board.getMoveCounter(), board.getPiece(from), from, Position.valueOf(move[1]), false));
+        }
+        Assertions.assertTrue(board.isRepetition());
+    }
+
+    @Test
+    void testPieceSquareTables() {
+        Assertions.assertEquals(0, board.getMiddlegameScore());
+        Assertions.assertEquals(0, board.getEndgameScore());
+        Assertions.assertEquals(PieceSquareTables.MAX_PHASE, board.getPhase());
+
+        final Random seeded = new Random(14);
+        final MoveList moves = new MoveList();
+
+        for (int ply = 0; ply < 120; ply++) {
+            moves.clear();
+            board.generateLegalMoves(moves);
+            if (moves.isEmpty()) break;
+            board.makeMove(moves.get(seeded.nextInt(moves.size())));
+
+            // the incrementally updated sums match the sums over the board
+            int middlegame = 0;
+            int endgame = 0;
+            int phase = 0;
+            for (Position position : Position.values()) {
+                final Piece piece = board.getPiece(position);
+
+                if (piece != null) {
+                    middlegame += PieceSquareTables.middlegame(piece.getType(), piece.getColor(), position.ordinal());
+                    endgame += PieceSquareTables.endgame(piece.getType(), piece.getColor(), position.ordinal());
+                    phase += PieceSquareTables.phase(piece.getType());
+                }
+            }
+            Assertions.assertEquals(middlegame, board.getMiddlegameScore());
+            Assertions.assertEquals(endgame, board.getEndgameScore());
+            Assertions.assertEquals(phase, board.getPhase());
+        }
+    }
+
+    @Test
+    void testFen() {
+        final String start = "rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1";
+        Assertions.assertEquals(start, board.toFen());
+        Assertions.assertEquals(board.hash(), Board.fromFen(start).hash());
+        Assertions.assertEquals(start, Board.fromFen(start).toFen());
+
+        final Position e2 = Position.E2;
+        board.makeMove(new Move(board.getMoveCounter(), board.getPiece(e2), e2, Position.E4, false));
+        final String e4 = "rnbqkbnr/pppppppp/8/8/4P3/8/PPPP1PPP/RNBQKBNR b KQkq e3 0 1";
+        Assertions.assertEquals(e4, board.toFen());
+
+        final Board loaded = Board.fromFen(e4);
+        Assertions.assertEquals(board.hash(), loaded.hash());
+        Assertions.assertEquals(board.getPawnHash(), loaded.getPawnHash());
+        Assertions.assertEquals(board.getMiddlegameScore(), loaded.getMiddlegameScore());
+        Assertions.assertEquals(Position.E3, loaded.getEnPassant());
+        Assertions.assertTrue(loaded.getPiece(Position.E4).hasMoved());
+        Assertions.assertFalse(loaded.getPiece(Position.D2).hasMoved());
+
+        // castling rights only remain with the king and rook in place, and the counters may be left out
+        final Board endgame = Board.fromFen("4k3/8/8/8/8/8/8/R3K2R w KQkq -");
+        Assertions.assertEquals(CastlingRights.WHITE_KINGSIDE | CastlingRights.WHITE_QUEENSIDE, endgame.getCastlingRights());
+        Assertions.assertTrue(endgame.getPiece(Position.E8).hasMoved());
+        Assertions.assertFalse(endgame.getPiece(Position.H1).hasMoved());
+        Assertions.assertEquals(1, endgame.getMoveCounter());
+        Assertions.assertEquals("4k3/8/8/8/8/8/8/R3K2R w KQ - 0 1", endgame.toFen());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("rnbqkbnr/pppppppp/8/8/8/8/PPPPPPPP w KQkq - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("rnbqkbnr/pppppppp/9/8/8/8/PPPPPPPP/RNBQKBNR w KQkq - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("8/8/8/8/8/8/8/8 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen(start.replace(" w ", " x ")));
+
+        // en passant squares which no pawn passed, or which belong to the other side, and pawns on the last ranks
+        Assertions.assertEquals("d5e6", PackedMove.toString(Board.fromFen("4k3/8/8/3Pp3/8/8/8/4K3 w - e6 0 1").parseMove("d5e6")));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/3P4/4K3 w - e3 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/3P4/8/8/8/4K3 w - e6 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/3Pp3/8/8/8/4K3 b - e6 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/4p3/8/3Pp3/8/8/8/4K3 w - e6 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k2P/8/8/8/8/8/8/4K3 w - - 0 1"));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> Board.fromFen("4k3/8/8/8/8/8/8/p3K3 b - - 0 1"));
+    }
+
+    @Test
+    void checkAttackTables() {
+        Assertions.assertEquals(2, Long.bitCount(AttackTables.knight(Position.A1.ordinal())));
+        Assertions.assertEquals(8, Long.bitCount(AttackTables.king(Position.E4.ordinal())));
+        Assertions.assertEquals(Bitboards.of(Position.D6) | Bitboards.of(Position.F6), AttackTables.pawn(BLACK, Position.E7.ordinal()));
+
+        Assertions.assertEquals(6, Long.bitCount(AttackTables.between(Position.A1.ordinal(), Position.H8.ordinal())));
+        Assertions.assertEquals(0, AttackTables.between(Position.A1.ordinal(), Position.B3.ordinal()));
+        Assertions.assertEquals(Bitboards.RANK_1, AttackTables.line(Position.C1.ordinal(), Position.F1.ordinal()));
+    }
+
+    @Test
+    void checkSlidingAttacks() {
+        final Random seeded = new Random(64);
+
+        for (int i = 0; i < 10_000; i++) {
+            final int square = seeded.nextInt(64);
+            final long occupied = seeded.nextLong() & seeded.nextLong();
+
+            Assertions.assertEquals(Bitboards.rookAttacks(square, occupied), MagicBitboards.rook(square, occupied));
+            Assertions.assertEquals(Bitboards.bishopAttacks(square, occupied), MagicBitboards.bishop(square, occupied));
+        }
+    }
+
     @DisplayName("Move Finder Tests")
     @TestMethodOrder(MethodOrderer.OrderAnnotation.class)
     @Nested
@@ -309,6 +635,27 @@ class BoardTests {
             Assertions.assertEquals(5, moves.length, "The moves found are " +
                     Arrays.toString(Arrays.stream(moves).map(Move::getTo).map(Position::name).toArray(String[]::new)));
         }
+
+        @DisplayName("Captures")
+        @Order(7)
+        @Test
+        void testCaptures() {
+            // a knight on E5 captures the pawns on D7 and F7, and only moves to the other squares
+            final Knight knight = board.setPiece(new Knight(WHITE), Position.E5);
+
+            for (Move move : board.getPotentialMoves(knight)) {
+                Assertions.assertEquals(move.getTo() == Position.D7 || move.getTo() == Position.F7, move.isCapture(), move.getTo().name());
+            }
+
+            // a pawn doesn't capture the pawn in front of it, only those on its diagonals
+            final Pawn pawn = board.setPiece(new Pawn(WHITE), Position.E6);
+            final Move[] moves = board.getPotentialMoves(pawn);
+
+            Assertions.assertTrue(Arrays.stream(moves).anyMatch(move -> move.getTo() == Position.E7));
+            for (Move move : moves) {
+                Assertions.assertEquals(move.getTo() == Position.D7 || move.getTo() == Position.F7, move.isCapture(), move.getTo().name());
+            }
+        }
     }
 
     @DisplayName("Move Checker Tests")
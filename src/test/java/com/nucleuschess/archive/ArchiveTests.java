@@ -0,0 +1,192 @@
+package com.nucleuschess.archive;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.pgn.PgnGame;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class ArchiveTests {
+
+    @Test
+    void testArchive() throws IOException {
+        final PgnGame scholar = game(new Board(), "1-0", "e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6", "h5f7");
+        final PgnGame endgame = game(Board.fromFen("4k3/1P6/8/3pP3/8/8/8/R3K2R w KQ d6 0 1"), "*", "e5d6", "e8d7", "b7b8n", "d7d6", "e1c1");
+
+        final Path file = Files.createTempFile("games", ".archive");
+        try {
+            try (GameArchiveWriter writer = new GameArchiveWriter(file)) {
+                for (int i = 0; i < 100; i++) {
+                    Assertions.assertEquals(i, writer.add(i % 2 == 0 ? scholar : endgame));
+                }
+            }
+
+            try (GameArchive archive = new GameArchive(file)) {
+                Assertions.assertEquals(100, archive.getGameCount());
+
+                final PgnGame read = archive.getGame(98);
+                Assertions.assertEquals(scholar.getTags(), read.getTags());
+                Assertions.assertEquals("1-0", read.getResult());
+                Assertions.assertArrayEquals(scholar.getMoves(), read.getMoves());
+
+                final PgnGame promotion = archive.getGame(99);
+                Assertions.assertEquals("*", archive.getResult(99));
+                Assertions.assertArrayEquals(endgame.getMoves(), promotion.getMoves());
+                Assertions.assertEquals("1N6/8/3k4/8/8/8/8/2KR3R b - - 1 3", replay(promotion).toFen());
+
+                // replay a part of a game onto a board
+                final Board board = new Board();
+                Assertions.assertEquals(4, archive.replay(0, board, 4));
+                Assertions.assertEquals("r1bqkbnr/pppp1ppp/2n5/4p3/2B1P3/8/PPPP1PPP/RNBQK1NR w KQkq - 2 3", board.toFen());
+                Assertions.assertEquals(3, archive.replay(1, endgame.createBoard(), 3));
+
+                Assertions.assertThrows(IndexOutOfBoundsException.class, () -> archive.getGame(100));
+            }
+
+            // the header, at most a byte per move, the index and the footer
+            Assertions.assertTrue(Files.size(file) <= 8 + 50 * getMaxSize(scholar) + 50 * getMaxSize(endgame) + 100 * 8 + 16);
+        } finally {
+            Files.delete(file);
+        }
+    }
+
+    private static PgnGame game(Board board, String result, String... moves) {
+        final Map<String, String> tags = new LinkedHashMap<>();
+        tags.put("Event", "Archive \u00e9");
+        tags.put("Result", result);
+        if (!board.toFen().equals(new Board().toFen())) {
+            tags.put("FEN", board.toFen());
+        }
+
+        final int[] packed = new int[moves.length];
+
+        for (int i = 0; i < moves.length; i++) {
+            packed[i] = board.parseMove(moves[i]);
+            Assertions.assertNotEquals(PackedMove.NONE, packed[i], moves[i]);
+            board.makeMove(packed[i]);
+        }
+        return new PgnGame(tags, packed, result);
+    }
+
+    @Test
+    void testPositionIndex() throws IOException {
+        final PgnGame scholar = game(new Board(), "1-0", "e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6", "h5f7");
+        final PgnGame italian = game(new Board(), "1/2-1/2", "e2e4", "e7e5", "g1f3", "b8c6", "f1c4", "f8c5");
+        final PgnGame shuffle = game(new Board(), "0-1", "g1f3", "g8f6", "f3g1", "f6g8", "d2d4");
+
+        final Path file = Files.createTempFile("games", ".archive");
+        final Path directory = Files.createTempDirectory("positions");
+
+        try {
+            try (GameArchiveWriter writer = new GameArchiveWriter(file)) {
+                writer.add(scholar);
+                writer.add(italian);
+            }
+
+            final PositionIndex index = new PositionIndex(directory, 40);
+            try (GameArchive archive = new GameArchive(file)) {
+                Assertions.assertEquals(2, index.update(archive));
+                Assertions.assertEquals(0, index.update(archive));
+            }
+
+            // the archive grows, and only the new games are indexed into a second run
+            try (GameArchiveWriter writer = new GameArchiveWriter(file)) {
+                writer.add(scholar);
+                writer.add(italian);
+                writer.add(shuffle);
+            }
+            try (GameArchive archive = new GameArchive(file)) {
+                Assertions.assertEquals(1, index.update(archive));
+            }
+            Assertions.assertEquals(2, index.getRunCount());
+
+            final Board board = new Board();
+            assertStats(index.getStats(board), 3, 1, 1, 1);
+            Assertions.assertArrayEquals(new int[]{0, 1, 2}, index.getGames(board.hash(), 10));
+            Assertions.assertArrayEquals(new int[]{0, 1}, index.getGames(board.hash(), 2));
+
+            // the third game plays 3. d4 from the start position it returned to
+            final MoveList moves = new MoveList();
+            final PositionStats[] stats = index.getMoveStats(board, moves);
+            for (int i = 0; i < moves.size(); i++) {
+                final String move = PackedMove.toString(moves.get(i));
+                Assertions.assertEquals(move.equals("e2e4") ? 2 : move.equals("g1f3") || move.equals("d2d4") ? 1 : 0, stats[i].getCount(), move);
+            }
+
+            // the second game reaches 1. e4 e5 2. Bc4 Nc6 3. Nf3 through another move order
+            final Board transposed = replay(game(new Board(), "*", "e2e4", "e7e5", "f1c4", "b8c6", "g1f3"));
+            assertStats(index.getStats(transposed), 1, 0, 1, 0);
+            Assertions.assertArrayEquals(new int[]{1}, index.getGames(transposed.hash(), 10));
+            Assertions.assertEquals(PositionStats.EMPTY, index.getStats(replay(game(new Board(), "*", "a2a3"))));
+
+            // the game which repeats the start position counts once
+            index.compact();
+            Assertions.assertEquals(1, index.getRunCount());
+            assertStats(index.getStats(new Board()), 3, 1, 1, 1);
+
+            final PositionIndex reopened = new PositionIndex(directory, 40);
+            Assertions.assertEquals(3, reopened.getGameCount());
+            Assertions.assertArrayEquals(new int[]{0, 1, 2}, reopened.getGames(new Board().hash(), 10));
+            Assertions.assertArrayEquals(new int[]{0, 1}, reopened.getGames(replay(game(new Board(), "*", "e2e4")).hash(), 10));
+            assertStats(reopened.getStats(replay(scholar)), 1, 1, 0, 0);
+        } finally {
+            Files.delete(file);
+            try (Stream<Path> files = Files.list(directory)) {
+                for (Path path : files.collect(Collectors.toList())) {
+                    Files.delete(path);
+                }
+            }
+            Files.delete(directory);
+        }
+    }
+
+    private static void assertStats(PositionStats stats, int count, int whiteWins, int draws, int blackWins) {
+        Assertions.assertEquals(count, stats.getCount());
+        Assertions.assertEquals(whiteWins, stats.getWhiteWins());
+        Assertions.assertEquals(draws, stats.getDraws());
+        Assertions.assertEquals(blackWins, stats.getBlackWins());
+    }
+
+    private static int getMaxSize(PgnGame game) {
+        int size = 3 + game.getMoveCount();
+
+        for (Map.Entry<String, String> tag : game.getTags().entrySet()) {
+            size += 2 + tag.getKey().getBytes(StandardCharsets.UTF_8).length + tag.getValue().getBytes(StandardCharsets.UTF_8).length;
+        }
+        return size;
+    }
+
+    private static Board replay(PgnGame game) {
+        final Board board = game.createBoard();
+        Arrays.stream(game.getMoves()).forEach(board::makeMove);
+        return board;
+    }
+}
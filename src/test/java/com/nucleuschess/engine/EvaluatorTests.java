@@ -0,0 +1,108 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.board.Bitboards;
+import com.nucleuschess.board.Board;
+import com.nucleuschess.board.Position;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.piece.Pawn;
+import com.nucleuschess.piece.PieceType;
+import com.nucleuschess.piece.Rook;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import static com.nucleuschess.Color.BLACK;
+import static com.nucleuschess.Color.WHITE;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class EvaluatorTests {
+
+    @Test
+    void testStartPosition() {
+        Assertions.assertEquals(0, new Evaluator().evaluate(new Board()));
+    }
+
+    @Test
+    void testPawnStructure() {
+        Assertions.assertEquals(0, PawnStructure.evaluate(Bitboards.RANK_2, Bitboards.RANK_7));
+
+        // a lone pawn is isolated and passed
+        final int passed = PawnStructure.evaluate(Bitboards.of(Position.E6), 0L);
+        Assertions.assertTrue(PawnStructure.endgame(passed) > 0);
+        Assertions.assertTrue(PawnStructure.endgame(passed) > PawnStructure.endgame(PawnStructure.evaluate(Bitboards.of(Position.E3), 0L)));
+
+        // doubled pawns are worse than pawns next to each other
+        final int doubled = PawnStructure.evaluate(Bitboards.of(Position.E2) | Bitboards.of(Position.E3), Bitboards.RANK_7);
+        final int connected = PawnStructure.evaluate(Bitboards.of(Position.E2) | Bitboards.of(Position.D2), Bitboards.RANK_7);
+        Assertions.assertTrue(PawnStructure.middlegame(doubled) < PawnStructure.middlegame(connected));
+
+        Assertions.assertEquals(-7, PawnStructure.middlegame(PawnStructure.pack(-7, 12)));
+        Assertions.assertEquals(12, PawnStructure.endgame(PawnStructure.pack(-7, 12)));
+    }
+
+    @Test
+    void testPawnHashTable() {
+        final PawnHashTable table = new PawnHashTable(16);
+        final Evaluator evaluator = new Evaluator(table);
+        final Board board = new Board();
+
+        evaluator.evaluate(board);
+        evaluator.evaluate(board);
+        Assertions.assertEquals(1, table.getMisses());
+        Assertions.assertEquals(1, table.getHits());
+
+        // moving a piece other than a pawn keeps the pawn hash
+        final long pawns = board.getPawnHash();
+        board.setPiece(board.getPiece(Position.G1), Position.F3);
+        Assertions.assertEquals(pawns, board.getPawnHash());
+        evaluator.evaluate(board);
+        Assertions.assertEquals(2, table.getHits());
+        Assertions.assertEquals(2.0 / 3, table.getHitRate(), 1e-9);
+
+        board.setEmpty(Position.E2);
+        Assertions.assertNotEquals(pawns, board.getPawnHash());
+        evaluator.evaluate(board);
+        Assertions.assertEquals(2, table.getMisses());
+    }
+
+    @Test
+    void testStaticExchange() {
+        final Board board = new Board();
+        board.setPiece(new Pawn(BLACK), Position.E5);
+        board.setPiece(board.getPiece(Position.G1), Position.F3);
+
+        // a pawn which is not defended is won
+        final int knight = PackedMove.of(Position.F3.ordinal(), Position.E5.ordinal(), PieceType.KNIGHT, WHITE, PieceType.PAWN, null, 0);
+        Assertions.assertEquals(100, StaticExchange.evaluate(board, knight));
+
+        // the knight wins two pawns for itself when the pawn recaptures
+        board.setPiece(new Pawn(BLACK), Position.D6);
+        board.setPiece(new Rook(WHITE), Position.E4);
+        Assertions.assertEquals(-120, StaticExchange.evaluate(board, knight));
+
+        // a rook taking a defended pawn is lost for it
+        board.setEmpty(Position.F3);
+        final int rook = PackedMove.of(Position.E4.ordinal(), Position.E5.ordinal(), PieceType.ROOK, WHITE, PieceType.PAWN, null, 0);
+        Assertions.assertEquals(-400, StaticExchange.evaluate(board, rook));
+        Assertions.assertFalse(StaticExchange.isGood(board, rook));
+
+        // a second rook behind the first one joins the exchange
+        board.setPiece(new Rook(WHITE), Position.E2);
+        Assertions.assertEquals(-300, StaticExchange.evaluate(board, rook));
+    }
+}
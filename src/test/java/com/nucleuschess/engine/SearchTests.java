@@ -0,0 +1,192 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.MoveList;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Arrays;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class SearchTests {
+
+    private Board board;
+
+    @BeforeEach
+    void createBoard() {
+        board = new Board();
+    }
+
+    @Test
+    void testMateInOne() {
+        play("e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6");
+
+        final long hash = board.hash();
+        final SearchResult result = new Search(board).search(new SearchLimits().setDepth(3));
+
+        Assertions.assertEquals("h5f7", PackedMove.toString(result.getBestMove()));
+        Assertions.assertEquals(Search.MATE - 1, result.getScore());
+        Assertions.assertTrue(result.isMate());
+        Assertions.assertEquals(hash, board.hash());
+    }
+
+    @Test
+    void testCaptureHangingQueen() {
+        play("e2e4", "d7d5", "d1g4", "c8g4");
+        play("b1c3", "g4d1");
+
+        final SearchResult result = new Search(board).search(new SearchLimits().setDepth(4));
+        Assertions.assertEquals("e1d1", PackedMove.toString(result.getBestMove()));
+    }
+
+    @Test
+    void testNodeLimit() {
+        final Search search = new Search(board);
+        final SearchResult result = search.search(new SearchLimits().setNodes(5_000));
+
+        Assertions.assertNotNull(result);
+        Assertions.assertNotEquals(PackedMove.NONE, result.getBestMove());
+        Assertions.assertTrue(search.getNodes() <= 5_000);
+    }
+
+    @Test
+    void testParallelSearch() {
+        play("e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6");
+
+        final ParallelSearch search = new ParallelSearch(3, new TranspositionTable(4));
+        final SearchResult result = search.search(board, new SearchLimits().setDepth(5));
+        final long[] nodes = search.getThreadNodes();
+        search.shutdown();
+
+        Assertions.assertEquals("h5f7", PackedMove.toString(result.getBestMove()));
+        Assertions.assertEquals(3, nodes.length);
+        Assertions.assertEquals(nodes[0] + nodes[1] + nodes[2], result.getNodes());
+        Assertions.assertTrue(nodes[0] > 0);
+    }
+
+    @Test
+    void testRepeatedParallelSearch() {
+        final ParallelSearch search = new ParallelSearch(4, new TranspositionTable(4));
+
+        // helpers which are stopped before they start searching still stop
+        Assertions.assertTimeoutPreemptively(Duration.ofSeconds(30), () -> {
+            for (int i = 0; i < 20; i++) {
+                Assertions.assertNotNull(search.search(board, new SearchLimits().setNodes(50)));
+            }
+        });
+        search.shutdown();
+    }
+
+    @Test
+    void testParallelNodeLimit() {
+        final ParallelSearch search = new ParallelSearch(2, new TranspositionTable(4));
+
+        // the helpers keep to the node limit too, so they don't finish deeper iterations than the main thread
+        for (int i = 0; i < 10; i++) {
+            Assertions.assertEquals(1, search.search(board, new SearchLimits().setNodes(5)).getDepth());
+        }
+        search.shutdown();
+    }
+
+    @Test
+    void testMovePicker() {
+        play("e2e4", "d7d5", "g1f3", "b8c6", "f1b5", "a7a6");
+
+        final MoveList legal = new MoveList();
+        board.generateLegalMoves(legal);
+
+        final int hashMove = board.parseMove("d2d4");
+        final int killer = board.parseMove("e1g1");
+        final int[] history = new int[64 * 64];
+        final MovePicker picker = new MovePicker(board);
+        picker.init(hashMove, killer, PackedMove.NONE, PackedMove.NONE, history);
+
+        final MoveList picked = new MoveList();
+        for (int move = picker.next(); move != PackedMove.NONE; move = picker.next()) {
+            Assertions.assertFalse(picked.contains(move), PackedMove.toString(move));
+            picked.add(move);
+        }
+        Assertions.assertEquals(legal.size(), picked.size());
+
+        // the hash move, then the captures which win material, then the killer
+        Assertions.assertEquals(hashMove, picked.get(0));
+        Assertions.assertEquals("e4d5", PackedMove.toString(picked.get(1)));
+        Assertions.assertEquals(killer, picked.get(2));
+
+        // a capture which loses material comes last
+        Assertions.assertEquals("b5a6", PackedMove.toString(picked.get(picked.size() - 1)));
+    }
+
+    @Test
+    void testMultiPv() {
+        play("e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6");
+
+        final SearchResult[] lines = new Search(board).search(new SearchLimits().setDepth(3), 3);
+
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertEquals("h5f7", PackedMove.toString(lines[0].getBestMove()));
+        Assertions.assertTrue(lines[0].getScore() > lines[1].getScore());
+        Assertions.assertTrue(lines[1].getScore() >= lines[2].getScore());
+        Assertions.assertNotEquals(lines[1].getBestMove(), lines[2].getBestMove());
+    }
+
+    @Test
+    void testAnalysis() {
+        final Board start = new Board();
+        final int[] scholar = moves("e2e4", "e7e5", "f1c4", "b8c6", "d1h5", "g8f6");
+        final int[] opening = moves("d2d4", "d7d5");
+        final int[] italian = moves("e2e4", "e7e5", "g1f3");
+
+        // the games which start with 1. e4 e5 go to the same worker, and the results keep the order of the games
+        final Analysis analysis = new Analysis(2, 2, 1, new SearchLimits().setDepth(2));
+        final Analysis.Batch batch = analysis.analyze(start, Arrays.asList(scholar, opening, italian));
+        analysis.shutdown();
+
+        Assertions.assertEquals(3, batch.getGames());
+        Assertions.assertEquals(7 + 3 + 4, batch.getPositions());
+        Assertions.assertEquals(2, batch.getLines(2, 3).length);
+        Assertions.assertTrue(batch.getPositionsPerSecond() > 0);
+        Assertions.assertEquals(2, batch.getLines(1, 0).length);
+        Assertions.assertEquals("h5f7", PackedMove.toString(batch.getLines(0, 6)[0].getBestMove()));
+        Assertions.assertEquals(start.hash(), new Board().hash());
+    }
+
+    private static int[] moves(String... moves) {
+        final Board game = new Board();
+        final int[] packed = new int[moves.length];
+
+        for (int i = 0; i < moves.length; i++) {
+            packed[i] = game.parseMove(moves[i]);
+            Assertions.assertNotEquals(PackedMove.NONE, packed[i], moves[i]);
+            game.makeMove(packed[i]);
+        }
+        return packed;
+    }
+
+    private void play(String... moves) {
+        for (String notation : moves) {
+            final int move = board.parseMove(notation);
+            Assertions.assertNotEquals(PackedMove.NONE, move, notation);
+            board.makeMove(move);
+        }
+    }
+}
@@ -0,0 +1,72 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class TimeManagerTests {
+
+    @Test
+    void testLimits() {
+        final TimeManager clock = new TimeManager(new SearchLimits().setTimeLeft(60_050));
+        Assertions.assertEquals(2_000, clock.getSoftLimit());
+        Assertions.assertEquals(8_000, clock.getHardLimit());
+
+        // most of the increment is used, and the last move before the time control gets most of the time
+        Assertions.assertEquals(2_750, new TimeManager(new SearchLimits().setTimeLeft(60_050).setIncrement(1_000)).getSoftLimit());
+        Assertions.assertEquals(45_000, new TimeManager(new SearchLimits().setTimeLeft(60_050).setMovesToGo(1)).getHardLimit());
+
+        final TimeManager fixed = new TimeManager(new SearchLimits().setTime(500));
+        Assertions.assertEquals(0, fixed.getSoftLimit());
+        Assertions.assertEquals(500, fixed.getHardLimit());
+        Assertions.assertFalse(fixed.shouldStop(result(1, 0, 400)));
+    }
+
+    @Test
+    void testStability() {
+        final TimeManager stable = new TimeManager(new SearchLimits().setTimeLeft(60_050));
+        Assertions.assertFalse(stable.shouldStop(result(1, 0, 100)));
+        Assertions.assertTrue(stable.shouldStop(result(1, 0, 1_500)));
+
+        // a new best move gets more time
+        final TimeManager unstable = new TimeManager(new SearchLimits().setTimeLeft(60_050));
+        Assertions.assertFalse(unstable.shouldStop(result(1, 0, 100)));
+        Assertions.assertFalse(unstable.shouldStop(result(2, 0, 1_500)));
+
+        // and so does a dropping score
+        final TimeManager dropping = new TimeManager(new SearchLimits().setTimeLeft(60_050));
+        Assertions.assertFalse(dropping.shouldStop(result(1, 0, 100)));
+        Assertions.assertFalse(dropping.shouldStop(result(1, -60, 1_500)));
+    }
+
+    @Test
+    void testHardLimit() {
+        final Search search = new Search(new Board());
+        final long start = System.nanoTime();
+        final SearchResult result = search.search(new SearchLimits().setTime(200));
+
+        Assertions.assertNotNull(result);
+        Assertions.assertTrue((System.nanoTime() - start) / 1_000_000 < 1_000);
+    }
+
+    private static SearchResult result(int move, int score, long time) {
+        return new SearchResult(new int[]{move}, score, 1, 0L, time);
+    }
+}
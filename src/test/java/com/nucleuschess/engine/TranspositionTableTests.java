@@ -0,0 +1,73 @@
+package com.nucleuschess.engine;
+
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class TranspositionTableTests {
+
+    @Test
+    void testStoreAndProbe() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final long hash = 0x1234_5678_9ABC_DEF0L;
+
+        Assertions.assertEquals(0L, table.probe(hash));
+
+        table.store(hash, 0x1ABCDEF, -Search.MATE + 3, 7, TranspositionTable.LOWER);
+        final long entry = table.probe(hash);
+
+        Assertions.assertEquals(0x1ABCDEF, TranspositionTable.getMove(entry));
+        Assertions.assertEquals(-Search.MATE + 3, TranspositionTable.getScore(entry));
+        Assertions.assertEquals(7, TranspositionTable.getDepth(entry));
+        Assertions.assertEquals(TranspositionTable.LOWER, TranspositionTable.getBound(entry));
+
+        // the move is kept when the position is stored again without one
+        table.store(hash, 0, 12, 8, TranspositionTable.EXACT);
+        Assertions.assertEquals(0x1ABCDEF, TranspositionTable.getMove(table.probe(hash)));
+        Assertions.assertEquals(12, TranspositionTable.getScore(table.probe(hash)));
+
+        table.clear();
+        Assertions.assertEquals(0L, table.probe(hash));
+    }
+
+    @Test
+    void testReplacement() {
+        final TranspositionTable table = new TranspositionTable(1);
+        final long bucket = 1L << 40;
+
+        // three positions in the same bucket, the shallowest entry is replaced
+        table.store(bucket, 1, 0, 10, TranspositionTable.EXACT);
+        table.store(2 * bucket, 2, 0, 2, TranspositionTable.EXACT);
+        table.store(3 * bucket, 3, 0, 5, TranspositionTable.EXACT);
+
+        Assertions.assertNotEquals(0L, table.probe(bucket));
+        Assertions.assertEquals(0L, table.probe(2 * bucket));
+        Assertions.assertNotEquals(0L, table.probe(3 * bucket));
+
+        // entries of an earlier search are replaced before deeper entries of this search
+        table.newSearch();
+        table.store(4 * bucket, 4, 0, 3, TranspositionTable.EXACT);
+        table.store(5 * bucket, 5, 0, 1, TranspositionTable.EXACT);
+
+        Assertions.assertEquals(0L, table.probe(bucket));
+        Assertions.assertEquals(0L, table.probe(3 * bucket));
+        Assertions.assertNotEquals(0L, table.probe(4 * bucket));
+        Assertions.assertNotEquals(0L, table.probe(5 * bucket));
+    }
+}
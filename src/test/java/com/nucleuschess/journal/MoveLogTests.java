@@ -0,0 +1,147 @@
+package com.nucleuschess.journal;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.CompletionException;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class MoveLogTests {
+
+    @Test
+    void testRecovery() throws IOException {
+        final Path directory = Files.createTempDirectory("games");
+
+        try {
+            final Board first = new Board();
+            final Board second = Board.fromFen("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1");
+            final Board ended = new Board();
+
+            try (MoveLog log = new MoveLog(directory)) {
+                Assertions.assertTrue(log.getRecoveredGames().isEmpty());
+
+                log.startGame(1L, first).join();
+                log.startGame(2L, second).join();
+                log.startGame(3L, ended).join();
+                play(log, 1L, first, "e2e4", "e7e5", "g1f3");
+                play(log, 2L, second, "e2e4", "e8d7");
+                play(log, 3L, ended, "d2d4");
+                log.endGame(3L).join();
+
+                // moves which are not legal, and games which are not started, are not written
+                final int e4 = new Board().parseMove("e2e4");
+                Assertions.assertThrows(CompletionException.class, () -> log.append(1L, e4).join());
+                Assertions.assertThrows(CompletionException.class, () -> log.append(4L, e4).join());
+                Assertions.assertThrows(CompletionException.class, () -> log.startGame(1L, new Board()).join());
+                Assertions.assertEquals(10, log.getRecords());
+            }
+
+            // the server stopped while it wrote a record
+            final Path segment = list(directory).get(0);
+            Files.write(segment, new byte[]{0, 0, 0, 13, 1, 2}, StandardOpenOption.APPEND);
+            final long size = Files.size(segment);
+
+            try (MoveLog log = new MoveLog(directory)) {
+                Assertions.assertEquals(2, log.getRecoveredGames().size());
+                Assertions.assertEquals(first.toFen(), log.getRecoveredGames().get(1L).toFen());
+                Assertions.assertEquals(second.toFen(), log.getRecoveredGames().get(2L).toFen());
+                Assertions.assertEquals(size - 6, Files.size(segment));
+
+                // a recovered game goes on
+                final Board board = log.getRecoveredGames().get(1L);
+                play(log, 1L, board, "b8c6");
+                first.makeMove(first.parseMove("b8c6"));
+            }
+
+            try (MoveLog log = new MoveLog(directory)) {
+                Assertions.assertEquals(first.toFen(), log.getRecoveredGames().get(1L).toFen());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    @Test
+    void testSnapshots() throws IOException {
+        final Path directory = Files.createTempDirectory("games");
+
+        try {
+            final Board board = new Board();
+            final String[] moves = {"g1f3", "g8f6", "f3g1", "f6g8"};
+
+            try (MoveLog log = new MoveLog(directory, 5)) {
+                log.startGame(7L, board).join();
+                for (int i = 0; i < 12; i++) {
+                    play(log, 7L, board, moves[i % 4]);
+                }
+            }
+
+            // the records before the last snapshot are deleted
+            Assertions.assertEquals(2, list(directory).size());
+            Assertions.assertTrue(list(directory).get(1).getFileName().toString().startsWith("snapshot-"));
+
+            try (MoveLog log = new MoveLog(directory, 5)) {
+                final Board recovered = log.getRecoveredGames().get(7L);
+                Assertions.assertEquals(board.toFen(), recovered.toFen());
+                Assertions.assertEquals(board.hash(), recovered.hash());
+
+                log.checkpoint().join();
+                Assertions.assertEquals(0, Files.size(list(directory).get(0)));
+            }
+
+            try (MoveLog log = new MoveLog(directory, 5)) {
+                Assertions.assertEquals(board.toFen(), log.getRecoveredGames().get(7L).toFen());
+            }
+        } finally {
+            delete(directory);
+        }
+    }
+
+    private static void play(MoveLog log, long game, Board board, String... moves) {
+        for (String notation : moves) {
+            final int move = board.parseMove(notation);
+            Assertions.assertNotEquals(PackedMove.NONE, move, notation);
+
+            board.makeMove(move);
+            log.append(game, move).join();
+        }
+    }
+
+    private static List<Path> list(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.sorted().collect(Collectors.toList());
+        }
+    }
+
+    private static void delete(Path directory) throws IOException {
+        for (Path path : list(directory)) {
+            Files.delete(path);
+        }
+        Files.delete(directory);
+    }
+}
@@ -0,0 +1,69 @@
+package com.nucleuschess.perft;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class PerftTests {
+
+    @Test
+    void testStartPosition() {
+        final Board board = new Board();
+        final long hash = board.hash();
+        final Perft perft = new Perft(board, 4);
+
+        for (int depth = 0; depth <= 4; depth++) {
+            Assertions.assertEquals(Perft.START_POSITION[depth], perft.perft(depth), "Depth " + depth);
+        }
+        Assertions.assertEquals(hash, board.hash());
+    }
+
+    @Test
+    void testPositions() {
+        assertCounts(Perft.KIWIPETE, Perft.KIWIPETE_COUNTS, 3);
+        assertCounts(Perft.ENDGAME, Perft.ENDGAME_COUNTS, 4);
+        assertCounts(Perft.PROMOTIONS, Perft.PROMOTIONS_COUNTS, 3);
+        assertCounts(Perft.CHECKS, Perft.CHECKS_COUNTS, 3);
+    }
+
+    @Test
+    void testDivide() {
+        final ForkJoinPool pool = new ForkJoinPool(2);
+        final Map<String, Long> divide = Perft.divide(new Board(), 3, pool);
+        pool.shutdown();
+
+        Assertions.assertEquals(20, divide.size());
+        Assertions.assertEquals(600L, (long) divide.get("e2e4"));
+        Assertions.assertEquals(Perft.START_POSITION[3], divide.values().stream().mapToLong(Long::longValue).sum());
+    }
+
+    private static void assertCounts(String fen, long[] counts, int maxDepth) {
+        final Board board = Board.fromFen(fen);
+        final Perft perft = new Perft(board, maxDepth);
+
+        for (int depth = 1; depth <= maxDepth; depth++) {
+            Assertions.assertEquals(counts[depth], perft.perft(depth), fen + " at depth " + depth);
+        }
+        Assertions.assertEquals(fen, board.toFen());
+    }
+}
@@ -0,0 +1,128 @@
+package com.nucleuschess.pgn;
+
+import com.nucleuschess.board.Board;
+import com.nucleuschess.move.PackedMove;
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class PgnTests {
+
+    private static final String SCHOLAR = "[Event \"Scholar\"]\n[White \"A\"]\n[Black \"B\"]\n[Result \"1-0\"]\n\n"
+            + "1. e4 e5 2. Bc4 {the bishop} Nc6 (2... Nf6 3. d3) 3. Qh5 $2 Nf6?? 4. Qxf7# 1-0\n";
+
+    private static final String CASTLING = "[Event \"Castling\"]\n[Result \"*\"]\n\n"
+            + "1. e4 e5 2. Nf3 Nc6 3. Bc4 Bc5 4. O-O Nf6 5. d3 O-O *\n";
+
+    private static final String ILLEGAL = "[Event \"Illegal\"]\n[Result \"*\"]\n\n1. e4 e5 2. Ke3 *\n";
+
+    @Test
+    void testSan() {
+        final Board board = Board.fromFen("4k3/1P6/8/3pP3/8/8/8/R3K2R w KQ d6 0 1");
+
+        Assertions.assertEquals("e5d6", PackedMove.toString(San.parse(board, "exd6")));
+        Assertions.assertEquals("b7b8q", PackedMove.toString(San.parse(board, "b8=Q+")));
+        Assertions.assertEquals("b7b8n", PackedMove.toString(San.parse(board, "b8N")));
+        Assertions.assertEquals("e1g1", PackedMove.toString(San.parse(board, "O-O")));
+        Assertions.assertEquals("e1c1", PackedMove.toString(San.parse(board, "0-0-0")));
+        Assertions.assertEquals("a1a8", PackedMove.toString(San.parse(board, "Ra8#")));
+
+        Assertions.assertEquals(PackedMove.NONE, San.parse(board, "Nf3"));
+        Assertions.assertEquals(PackedMove.NONE, San.parse(board, "e4"));
+
+        // both rooks reach d1 and b1, and both knights reach a3
+        final Board rooks = Board.fromFen("k7/8/8/8/2N5/4K3/2N5/R6R w - - 0 1");
+        Assertions.assertEquals(PackedMove.NONE, San.parse(rooks, "Rd1"));
+        Assertions.assertEquals("h1d1", PackedMove.toString(San.parse(rooks, "Rhd1")));
+        Assertions.assertEquals("a1b1", PackedMove.toString(San.parse(rooks, "Rab1")));
+        Assertions.assertEquals(PackedMove.NONE, San.parse(rooks, "Na3"));
+        Assertions.assertEquals("c2a3", PackedMove.toString(San.parse(rooks, "N2a3")));
+        Assertions.assertEquals("c4d6", PackedMove.toString(San.parse(rooks, "Nd6")));
+    }
+
+    @Test
+    void testParser() {
+        final PgnGame game = new PgnParser().parse(SCHOLAR, 0, SCHOLAR.length());
+
+        Assertions.assertEquals("Scholar", game.getTag("Event"));
+        Assertions.assertEquals("1-0", game.getResult());
+        Assertions.assertEquals(7, game.getMoveCount());
+        Assertions.assertEquals("h5f7", PackedMove.toString(game.getMoves()[6]));
+
+        final String fen = "[FEN \"4k3/8/8/8/8/8/4P3/4K3 w - - 0 1\"]\n[SetUp \"1\"]\n\n1. e4 Kd7 2. e5 Ke6 1/2-1/2";
+        final PgnGame setUp = new PgnParser().parse(fen, 0, fen.length());
+
+        Assertions.assertEquals("1/2-1/2", setUp.getResult());
+        Assertions.assertEquals("4k3/8/8/8/8/8/4P3/4K3 w - - 0 1", setUp.createBoard().toFen());
+        Assertions.assertEquals("8/8/4k3/4P3/8/8/8/4K3 w - - 1 3", replay(setUp).toFen());
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> new PgnParser().parse(ILLEGAL, 0, ILLEGAL.length()));
+    }
+
+    @Test
+    void testReader() throws IOException {
+        final StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            text.append(SCHOLAR).append('\n').append(i % 10 == 0 ? ILLEGAL : CASTLING).append('\n');
+        }
+
+        final Path file = Files.createTempFile("games", ".pgn");
+        final ForkJoinPool pool = new ForkJoinPool(2);
+
+        try {
+            Files.write(file, text.toString().getBytes(StandardCharsets.UTF_8));
+
+            // segments much smaller than the file, so games are split over them
+            try (PgnReader reader = new PgnReader(file, pool, 1000)) {
+                final List<PgnGame> games = reader.games().collect(Collectors.toList());
+
+                Assertions.assertEquals(95, games.size());
+                Assertions.assertEquals(95, reader.getGames());
+                Assertions.assertEquals(5, reader.getErrors());
+                Assertions.assertEquals(Files.size(file), reader.getBytes());
+                Assertions.assertTrue(reader.getGamesPerSecond() > 0);
+
+                Assertions.assertEquals("Scholar", games.get(0).getTag("Event"));
+                Assertions.assertEquals("Castling", games.get(94).getTag("Event"));
+                Assertions.assertEquals("r1bq1rk1/pppp1ppp/2n2n2/2b1p3/2B1P3/3P1N2/PPP2PPP/RNBQ1RK1 w - - 1 6",
+                        replay(games.get(94)).toFen());
+            }
+        } finally {
+            pool.shutdown();
+            Files.delete(file);
+        }
+    }
+
+    private static Board replay(PgnGame game) {
+        final Board board = game.createBoard();
+
+        for (int move : game.getMoves()) {
+            board.makeMove(move);
+        }
+        return board;
+    }
+}
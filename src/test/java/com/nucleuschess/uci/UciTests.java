@@ -0,0 +1,97 @@
+package com.nucleuschess.uci;
+
+import com.nucleuschess.util.SimpleDisplayNameGenerator;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.DisplayNameGeneration;
+import org.junit.jupiter.api.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.PrintStream;
+import java.io.StringReader;
+import java.util.Arrays;
+import java.util.List;
+
+/*
+  Copyright (C) 2021, NucleusChess.
+  This program is free software: you can redistribute it and/or modify
+  it under the terms of the GNU Affero General Public License as published
+  by the Free Software Foundation, either version 3 of the License, or
+  (at your option) any later version.
+  This program is distributed in the hope that it will be useful,
+  but WITHOUT ANY WARRANTY; without even the implied warranty of
+  MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+  GNU Affero General Public License for more details.
+  You should have received a copy of the GNU Affero General Public License
+  along with this program.  If not, see <https://www.gnu.org/licenses/>.
+*/
+
+@DisplayNameGeneration(SimpleDisplayNameGenerator.class)
+class UciTests {
+
+    @Test
+    void testHandshake() throws IOException {
+        final List<String> output = run("uci", "setoption name Hash value 4", "setoption name Threads value 2",
+                "setoption name PawnHash value 2", "isready", "quit");
+
+        Assertions.assertEquals("id name NucleusChess", output.get(0));
+        Assertions.assertTrue(output.contains("option name PawnHash type spin default 1 min 1 max 256"));
+        Assertions.assertTrue(output.contains("uciok"));
+        Assertions.assertEquals("readyok", output.get(output.size() - 1));
+    }
+
+    @Test
+    void testGoDepth() throws IOException {
+        final List<String> output = run("position startpos moves e2e4 e7e5 f1c4 b8c6 d1h5 g8f6", "go depth 3");
+
+        Assertions.assertTrue(output.get(0).startsWith("info depth 1 "));
+        Assertions.assertTrue(output.get(output.size() - 2).matches("info depth 3 score mate 1 nodes \\d+ nps \\d+ time \\d+ hashfull \\d+ pv h5f7"));
+        Assertions.assertEquals("bestmove h5f7", output.get(output.size() - 1));
+    }
+
+    @Test
+    void testGoNodes() throws IOException {
+        final List<String> output = run("position startpos", "go nodes 1",
+                "position fen r3k2r/p1ppqpb1/bn2pnp1/3PN3/1p2P3/2N2Q1p/PPPBBPPP/R3K2R w KQkq - 0 1", "go nodes 10");
+
+        Assertions.assertEquals(4, output.size());
+        for (int i = 0; i < output.size(); i += 2) {
+            Assertions.assertTrue(output.get(i).matches("info depth 1 .* pv \\w{4}( \\w{4})*"));
+            Assertions.assertTrue(output.get(i + 1).matches("bestmove \\w{4}( ponder \\w{4})?"));
+            Assertions.assertNotEquals("bestmove 0000", output.get(i + 1));
+        }
+    }
+
+    @Test
+    void testPositionFen() throws IOException {
+        final List<String> output = run("position fen 6k1/5ppp/8/8/8/8/8/R5K1 b - - 0 1 moves g8h8", "go depth 2");
+
+        Assertions.assertEquals("bestmove a1a8", output.get(output.size() - 1));
+    }
+
+    @Test
+    void testStopInfinite() throws IOException {
+        final List<String> output = run("position startpos", "go infinite", "stop", "isready");
+
+        Assertions.assertTrue(output.get(output.size() - 2).startsWith("bestmove "));
+        Assertions.assertEquals("readyok", output.get(output.size() - 1));
+    }
+
+    @Test
+    void testInvalidCommands() throws IOException {
+        final List<String> output = run("position startpos moves e2e5", "setoption name Threads value 0", "go depth 1");
+
+        Assertions.assertTrue(output.get(0).startsWith("info string Invalid command position startpos moves e2e5"));
+        Assertions.assertTrue(output.get(1).startsWith("info string Invalid command setoption"));
+        Assertions.assertTrue(output.get(output.size() - 1).startsWith("bestmove "));
+    }
+
+    private static List<String> run(String... commands) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        final BufferedReader in = new BufferedReader(new StringReader(String.join("\n", commands)));
+
+        new Uci(in, new PrintStream(bytes, true)).run();
+        return Arrays.asList(bytes.toString().split("\\R"));
+    }
+}